@@ -0,0 +1,251 @@
+package jpa_demo_01.bench;
+
+import jakarta.persistence.EntityManager;
+import jpa_demo_01.config.JPAUtil;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Embedded H2 database seeded with an employees-sized dataset.
+ *
+ * <p>Points {@link JPAUtil} at an in-memory H2 database (through the
+ * {@code db.*} system property overrides), lets Hibernate create the schema,
+ * then bulk-loads departments, employees and their department, manager,
+ * title and salary history with plain JDBC batches. The generator is seeded
+ * with a fixed value so every run, on every commit, sees the same data.</p>
+ *
+ * <p>The number of employees defaults to 300,000 (the size of the MySQL
+ * sample database) and can be changed with {@code -Dbench.employees=N}.</p>
+ */
+public final class BenchmarkDatabase {
+
+    /**
+     * Department numbers and their share of employees, shaped like the
+     * sample database (d005 is by far the largest).
+     */
+    static final String[] DEPT_NOS = {
+            "d001", "d002", "d003", "d004", "d005", "d006", "d007", "d008", "d009"
+    };
+    private static final String[] DEPT_NAMES = {
+            "Marketing", "Finance", "Human Resources", "Production", "Development",
+            "Quality Management", "Sales", "Research", "Customer Service"
+    };
+    private static final int[] DEPT_WEIGHTS = { 6, 5, 5, 22, 26, 6, 16, 6, 8 };
+
+    private static final String[][] CAREERS = {
+            { "Staff", "Senior Staff" },
+            { "Engineer", "Senior Engineer", "Technique Leader" },
+            { "Assistant Engineer", "Engineer", "Senior Engineer" }
+    };
+
+    static final LocalDate MAX_DATE = LocalDate.of(9999, 1, 1);
+    private static final LocalDate END_OF_HISTORY = LocalDate.of(2002, 8, 1);
+    private static final String URL =
+            "jdbc:h2:mem:employees;MODE=MariaDB;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    private static final int JDBC_BATCH = 5_000;
+
+    /** First employee number, as in the sample database. */
+    static final int FIRST_EMP_NO = 10_001;
+
+    private static boolean started;
+    private static int employeeCount;
+
+    private BenchmarkDatabase() {}
+
+    /**
+     * Configures, creates and seeds the database once per JVM.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        employeeCount = Integer.getInteger("bench.employees", 300_000);
+
+        System.setProperty("db.driver", "org.h2.Driver");
+        System.setProperty("db.url", URL);
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+        System.setProperty("hibernate.hbm2ddl.auto", "create");
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty("hibernate.format_sql", "false");
+
+        // creating the factory creates the schema
+        JPAUtil.getEntityManagerFactory();
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            em.unwrap(org.hibernate.Session.class).doWork(BenchmarkDatabase::seed);
+        } finally {
+            em.close();
+        }
+        started = true;
+    }
+
+    /**
+     * Shuts the factory and pool down.
+     */
+    public static synchronized void stop() {
+        JPAUtil.close();
+        started = false;
+    }
+
+    /**
+     * @return the number of seeded employees
+     */
+    public static int getEmployeeCount() {
+        return employeeCount;
+    }
+
+    private static void seed(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        Random random = new Random(42);
+
+        try (PreparedStatement departments = connection.prepareStatement(
+                     "INSERT INTO departments (dept_no, dept_name) VALUES (?, ?)");
+             PreparedStatement employees = connection.prepareStatement(
+                     "INSERT INTO employees (emp_no, birth_date, first_name, last_name, gender, hire_date) " +
+                             "VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement deptEmp = connection.prepareStatement(
+                     "INSERT INTO dept_emp (emp_no, dept_no, from_date, to_date) VALUES (?, ?, ?, ?)");
+             PreparedStatement deptManager = connection.prepareStatement(
+                     "INSERT INTO dept_manager (emp_no, dept_no, from_date, to_date) VALUES (?, ?, ?, ?)");
+             PreparedStatement titles = connection.prepareStatement(
+                     "INSERT INTO titles (emp_no, title, from_date, to_date) VALUES (?, ?, ?, ?)");
+             PreparedStatement salaries = connection.prepareStatement(
+                     "INSERT INTO salaries (emp_no, from_date, salary, to_date) VALUES (?, ?, ?, ?)")) {
+
+            for (int d = 0; d < DEPT_NOS.length; d++) {
+                departments.setString(1, DEPT_NOS[d]);
+                departments.setString(2, DEPT_NAMES[d]);
+                departments.addBatch();
+            }
+            departments.executeBatch();
+
+            int totalWeight = 0;
+            for (int weight : DEPT_WEIGHTS) {
+                totalWeight += weight;
+            }
+
+            for (int i = 0; i < employeeCount; i++) {
+                int empNo = FIRST_EMP_NO + i;
+                LocalDate hireDate = LocalDate.of(1985, 1, 1).plusDays(random.nextInt(5_000));
+                LocalDate birthDate = hireDate.minusYears(20 + random.nextInt(25))
+                        .minusDays(random.nextInt(365));
+
+                employees.setInt(1, empNo);
+                employees.setDate(2, Date.valueOf(birthDate));
+                employees.setString(3, name(random, 4 + random.nextInt(6)));
+                employees.setString(4, name(random, 5 + random.nextInt(8)));
+                employees.setString(5, random.nextBoolean() ? "M" : "F");
+                employees.setDate(6, Date.valueOf(hireDate));
+                employees.addBatch();
+
+                // department history: one department, 10% move once
+                String dept = pickDept(random, totalWeight);
+                if (random.nextInt(10) == 0) {
+                    LocalDate moved = between(random, hireDate, END_OF_HISTORY);
+                    String newDept = pickDept(random, totalWeight);
+                    addHistory(deptEmp, empNo, dept, hireDate, moved);
+                    if (!newDept.equals(dept)) {
+                        addHistory(deptEmp, empNo, newDept, moved.plusDays(1), MAX_DATE);
+                    }
+                } else {
+                    addHistory(deptEmp, empNo, dept, hireDate, MAX_DATE);
+                }
+
+                // title history: walk up one of the career ladders
+                String[] career = CAREERS[random.nextInt(CAREERS.length)];
+                int steps = 1 + random.nextInt(career.length);
+                LocalDate from = hireDate;
+                for (int t = 0; t < steps; t++) {
+                    boolean last = t == steps - 1;
+                    LocalDate to = last ? MAX_DATE : between(random, from, END_OF_HISTORY);
+                    addHistory(titles, empNo, career[t], from, to);
+                    from = to.plusDays(1);
+                }
+
+                // salary history: one row per year, at most 18
+                int years = Math.min(18, Math.max(1,
+                        END_OF_HISTORY.getYear() - hireDate.getYear()));
+                int salary = 40_000 + random.nextInt(30_000);
+                for (int y = 0; y < years; y++) {
+                    LocalDate salaryFrom = hireDate.plusYears(y);
+                    salaries.setInt(1, empNo);
+                    salaries.setDate(2, Date.valueOf(salaryFrom));
+                    salaries.setInt(3, salary);
+                    salaries.setDate(4, Date.valueOf(y == years - 1 ? MAX_DATE : salaryFrom.plusYears(1)));
+                    salaries.addBatch();
+                    salary += random.nextInt(4_000);
+                }
+
+                if ((i + 1) % JDBC_BATCH == 0) {
+                    executeAll(employees, deptEmp, titles, salaries);
+                }
+            }
+            executeAll(employees, deptEmp, titles, salaries);
+
+            // two managers per department, the second one current
+            for (int d = 0; d < DEPT_NOS.length; d++) {
+                int first = FIRST_EMP_NO + random.nextInt(employeeCount);
+                int second = FIRST_EMP_NO + random.nextInt(employeeCount);
+                addHistory(deptManager, first, DEPT_NOS[d],
+                        LocalDate.of(1985, 1, 1), LocalDate.of(1991, 10, 1));
+                if (second != first) {
+                    addHistory(deptManager, second, DEPT_NOS[d],
+                            LocalDate.of(1991, 10, 2), MAX_DATE);
+                }
+            }
+            deptManager.executeBatch();
+
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void addHistory(PreparedStatement statement, int empNo, String key,
+                                   LocalDate from, LocalDate to) throws SQLException {
+        statement.setInt(1, empNo);
+        statement.setString(2, key);
+        statement.setDate(3, Date.valueOf(from));
+        statement.setDate(4, Date.valueOf(to));
+        statement.addBatch();
+    }
+
+    private static void executeAll(PreparedStatement... statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+    }
+
+    private static String pickDept(Random random, int totalWeight) {
+        int r = random.nextInt(totalWeight);
+        for (int d = 0; d < DEPT_WEIGHTS.length; d++) {
+            r -= DEPT_WEIGHTS[d];
+            if (r < 0) {
+                return DEPT_NOS[d];
+            }
+        }
+        return DEPT_NOS[DEPT_NOS.length - 1];
+    }
+
+    private static LocalDate between(Random random, LocalDate from, LocalDate to) {
+        long days = Math.max(1, to.toEpochDay() - from.toEpochDay());
+        return from.plusDays(1 + random.nextInt((int) Math.min(days, Integer.MAX_VALUE)));
+    }
+
+    private static String name(Random random, int length) {
+        char[] chars = new char[length];
+        chars[0] = (char) ('A' + random.nextInt(26));
+        for (int c = 1; c < length; c++) {
+            chars[c] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
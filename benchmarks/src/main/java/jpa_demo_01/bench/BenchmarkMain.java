@@ -0,0 +1,35 @@
+package jpa_demo_01.bench;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ *
+ * <p>Accepts the usual JMH command line, and unless told otherwise writes
+ * the results as JSON to {@code jmh-result.json} so runs on different
+ * commits can be compared (e.g. with a JMH result visualizer), and runs the
+ * {@code gc} profiler to report allocation per operation.</p>
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(List.of("-rf", "json"));
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.addAll(List.of("-rff", "jmh-result.json"));
+        }
+        if (!arguments.contains("-prof")) {
+            arguments.addAll(List.of("-prof", "gc"));
+        }
+        new Runner(new CommandLineOptions(arguments.toArray(new String[0]))).run();
+    }
+}
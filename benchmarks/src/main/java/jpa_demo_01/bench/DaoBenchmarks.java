@@ -0,0 +1,150 @@
+package jpa_demo_01.bench;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.dao.DepartmentDAO;
+import jpa_demo_01.dao.EmployeeDAO;
+import jpa_demo_01.dao.EmployeeFetchProfile;
+import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.entity.Department;
+import jpa_demo_01.entity.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the DAO hot paths, each with a fresh {@link EntityManager}
+ * per operation as the REST resources use them.
+ *
+ * <p>The department benchmarks page through {@code d005}, the largest
+ * department; the deep-page variant reads its last page.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DaoBenchmarks {
+
+    private static final String DEPT_NO = "d005";
+    private static final int PAGE_SIZE = 20;
+
+    private int deepPage;
+
+    /**
+     * Next effective date handed out to {@link #promoteEmployee()}, so that
+     * every invocation is a new promotion.
+     */
+    private LocalDate nextPromotionDate = LocalDate.of(2010, 1, 1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start();
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            long total = new DepartmentDAO(em).countEmployeesInDept(DEPT_NO);
+            deepPage = (int) Math.ceil(total / (double) PAGE_SIZE);
+        } finally {
+            em.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public List<Department> findAll() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return new DepartmentDAO(em).findAll();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<EmployeeInfoDTO> findEmployeesByDeptNoShallow() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return new DepartmentDAO(em).findEmployeesByDeptNo(DEPT_NO, 1, PAGE_SIZE);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<EmployeeInfoDTO> findEmployeesByDeptNoDeep() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return new DepartmentDAO(em).findEmployeesByDeptNo(DEPT_NO, deepPage, PAGE_SIZE);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public long countEmployeesInDept() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return new DepartmentDAO(em).countEmployeesInDept(DEPT_NO);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public Employee findEmployeeFull() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return new EmployeeDAO(em).findEmployee(randomEmpNo(), EmployeeFetchProfile.FULL);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public void promoteEmployee() {
+        LocalDate effectiveFrom;
+        synchronized (this) {
+            effectiveFrom = nextPromotionDate;
+            nextPromotionDate = nextPromotionDate.plusDays(1);
+        }
+
+        EntityManager em = JPAUtil.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            new EmployeeDAO(em).promoteEmployee(
+                    randomEmpNo(), "Senior Engineer", 90_000, effectiveFrom);
+            tx.commit();
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
+
+    static int randomEmpNo() {
+        return BenchmarkDatabase.FIRST_EMP_NO
+                + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.getEmployeeCount());
+    }
+}
@@ -0,0 +1,110 @@
+package jpa_demo_01.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.config.ObjectMapperProvider;
+import jpa_demo_01.dao.DepartmentDAO;
+import jpa_demo_01.dao.EmployeeDAO;
+import jpa_demo_01.dao.EmployeeFetchProfile;
+import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.entity.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the response formats offered by content negotiation:
+ * JSON, CBOR and Smile.
+ *
+ * <p>Encodes and decodes the same full {@link Employee} and page of
+ * {@link EmployeeInfoDTO} as {@link SerializationBenchmarks}, with the
+ * application's mapper for each format. The employee is decoded into a
+ * tree, as a client without the entity classes would; the page into
+ * {@link EmployeeInfoDTO}. The encoded size of each payload is printed
+ * once per trial.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FormatBenchmarks {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private Employee employee;
+    private List<EmployeeInfoDTO> page;
+    private byte[] encodedEmployee;
+    private byte[] encodedPage;
+    private ObjectReader pageReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.start();
+        mapper = switch (format) {
+            case "cbor" -> ObjectMapperProvider.getCborMapper();
+            case "smile" -> ObjectMapperProvider.getSmileMapper();
+            default -> ObjectMapperProvider.getMapper();
+        };
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            employee = new EmployeeDAO(em).findEmployee(
+                    BenchmarkDatabase.FIRST_EMP_NO, EmployeeFetchProfile.FULL);
+            page = new DepartmentDAO(em).findEmployeesByDeptNo("d005", 1, 20);
+        } finally {
+            em.close();
+        }
+
+        encodedEmployee = mapper.writeValueAsBytes(employee);
+        encodedPage = mapper.writeValueAsBytes(page);
+        pageReader = mapper.readerFor(
+                mapper.getTypeFactory().constructCollectionType(List.class, EmployeeInfoDTO.class));
+        System.out.printf("%n%s: employee %d bytes, page %d bytes%n",
+                format, encodedEmployee.length, encodedPage.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public byte[] encodeEmployee() throws Exception {
+        return mapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public JsonNode decodeEmployee() throws Exception {
+        return mapper.readTree(encodedEmployee);
+    }
+
+    @Benchmark
+    public byte[] encodeEmployeeInfoPage() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<EmployeeInfoDTO> decodeEmployeeInfoPage() throws Exception {
+        return pageReader.readValue(encodedPage);
+    }
+}
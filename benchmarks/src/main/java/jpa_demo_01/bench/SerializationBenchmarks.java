@@ -0,0 +1,104 @@
+package jpa_demo_01.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.config.ObjectMapperProvider;
+import jpa_demo_01.dao.DepartmentDAO;
+import jpa_demo_01.dao.EmployeeDAO;
+import jpa_demo_01.dao.EmployeeFetchProfile;
+import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.entity.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of Jackson serialization with the application's mapper.
+ *
+ * <p>Serializes an {@link Employee} loaded with its full history (as
+ * {@code GET /employees/{empNo}} returns it) and a page of
+ * {@link EmployeeInfoDTO} (as the department listing returns it).</p>
+ *
+ * <p>{@code mapper=application} uses the mapper the API serves with;
+ * {@code mapper=plain} a mapper with only the Java time and Hibernate
+ * modules, for comparison. {@link BenchmarkMain} runs the {@code gc}
+ * profiler, whose {@code gc.alloc.rate.norm} is the bytes allocated per
+ * serialized employee or page.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializationBenchmarks {
+
+    @Param({"application", "plain"})
+    public String mapper;
+
+    private ObjectMapper objectMapper;
+    private Employee employee;
+    private List<EmployeeInfoDTO> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.start();
+        objectMapper = mapper.equals("plain") ? plainMapper() : ObjectMapperProvider.getMapper();
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            employee = new EmployeeDAO(em).findEmployee(
+                    BenchmarkDatabase.FIRST_EMP_NO, EmployeeFetchProfile.FULL);
+            page = new DepartmentDAO(em).findEmployeesByDeptNo("d005", 1, 20);
+        } finally {
+            em.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.stop();
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws Exception {
+        return objectMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployeeInfoPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    /**
+     * A mapper with reflective accessors and the Java time module's
+     * {@code LocalDate} serializer.
+     */
+    private static ObjectMapper plainMapper() {
+        ObjectMapper plain = new ObjectMapper();
+        plain.registerModule(new JavaTimeModule());
+        plain.registerModule(new Hibernate6Module());
+        plain.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // Employee names a property filter; without one every property is written
+        plain.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+        return plain;
+    }
+}
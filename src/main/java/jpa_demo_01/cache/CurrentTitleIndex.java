@@ -0,0 +1,265 @@
+package jpa_demo_01.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process inverted index answering "who holds title X now", optionally
+ * within one department.
+ *
+ * <p>Without it, listing the current holders of a title means scanning
+ * {@code titles} for rows with {@code to_date = 9999-01-01}. The index keeps,
+ * for every title, the set of employees whose open title row has that
+ * title, and for every department the set of employees whose open
+ * {@code dept_emp} row is in it. Each set is a {@link BitSet} indexed by
+ * employee number: with employee numbers below half a million that is
+ * about 60 KiB per set, a title-and-department query is a word-wise
+ * {@code AND}, and a page of holders in employee number order is a walk
+ * with {@link BitSet#nextSetBit(int)} from the cursor.</p>
+ *
+ * <p>Lifecycle:</p>
+ * <ul>
+ *     <li>Built from the database at startup via {@link #rebuild(Consumer)}.</li>
+ *     <li>Read by {@code GET /api/titles} and
+ *         {@code GET /api/titles/{title}/employees}.</li>
+ *     <li>Kept current by the promotion paths of
+ *         {@link jpa_demo_01.dao.EmployeeDAO}, which call
+ *         {@link #setTitle(int, String)} once their transaction has
+ *         committed. Promotions do not move employees between departments,
+ *         so the department sets only change on rebuild.</li>
+ * </ul>
+ *
+ * <p>All methods are thread-safe. Queries share a read lock; updates take
+ * the write lock for the few bit flips they need.</p>
+ */
+public final class CurrentTitleIndex {
+
+    /**
+     * One page of the holders of a title.
+     *
+     * @param empNos employee numbers on this page, ascending
+     * @param total  the number of holders across all pages
+     * @param more   whether holders follow this page
+     */
+    public record Page(int[] empNos, int total, boolean more) {}
+
+    /**
+     * Collects the sets of a new index; see {@link #rebuild(Consumer)}.
+     */
+    public static final class Builder {
+
+        private final Map<String, BitSet> titles = new HashMap<>();
+        private final Map<String, BitSet> departments = new HashMap<>();
+
+        private Builder() {}
+
+        /**
+         * Records that an employee currently holds a title.
+         *
+         * @param title the title of the employee's open title row
+         * @param empNo the employee number
+         */
+        public void addTitle(String title, int empNo) {
+            titles.computeIfAbsent(title, t -> new BitSet()).set(empNo);
+        }
+
+        /**
+         * Records that an employee currently belongs to a department.
+         *
+         * @param deptNo the department of the employee's open {@code dept_emp} row
+         * @param empNo  the employee number
+         */
+        public void addDepartment(String deptNo, int empNo) {
+            departments.computeIfAbsent(deptNo, d -> new BitSet()).set(empNo);
+        }
+    }
+
+    private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+
+    // Guarded by LOCK; null until first built
+    private static Map<String, BitSet> byTitle;
+    private static Map<String, BitSet> byDepartment;
+
+    /**
+     * Title changes committed while a rebuild is reading the database,
+     * applied again to the new sets; {@code null} when no rebuild is running.
+     */
+    private static List<Map.Entry<Integer, String>> changedDuringRebuild;
+
+    private CurrentTitleIndex() {}
+
+    /**
+     * Replaces the index with one built by {@code loader}.
+     *
+     * <p>Title changes reported while the loader runs are applied to the new
+     * index as well, so that a promotion committing after the loader has
+     * read the employee's title is not lost.</p>
+     *
+     * @param loader fills the builder with every current title and department
+     */
+    public static synchronized void rebuild(Consumer<Builder> loader) {
+        LOCK.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+
+        Builder builder = new Builder();
+        boolean loaded = false;
+        try {
+            loader.accept(builder);
+            loaded = true;
+        } finally {
+            LOCK.writeLock().lock();
+            try {
+                List<Map.Entry<Integer, String>> changes = changedDuringRebuild;
+                changedDuringRebuild = null;
+                if (loaded) {
+                    byTitle = builder.titles;
+                    byDepartment = builder.departments;
+                    for (Map.Entry<Integer, String> change : changes) {
+                        move(change.getKey(), change.getValue());
+                    }
+                }
+            } finally {
+                LOCK.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Records a committed promotion: the employee now holds {@code title}
+     * and no other title.
+     *
+     * @param empNo the promoted employee
+     * @param title the employee's new title
+     */
+    public static void setTitle(int empNo, String title) {
+        LOCK.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(Map.entry(empNo, title));
+            }
+            if (byTitle != null) {
+                move(empNo, title);
+            }
+        } finally {
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether the index has been built
+     */
+    public static boolean isReady() {
+        LOCK.readLock().lock();
+        try {
+            return byTitle != null;
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the current holders of every title.
+     *
+     * @return holder counts keyed by title, sorted by title, or {@code null}
+     *         if the index has not been built
+     */
+    public static Map<String, Integer> countByTitle() {
+        LOCK.readLock().lock();
+        try {
+            if (byTitle == null) {
+                return null;
+            }
+            Map<String, Integer> counts = new TreeMap<>();
+            byTitle.forEach((title, holders) -> counts.put(title, holders.cardinality()));
+            return counts;
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of the current holders of a title, in employee number
+     * order.
+     *
+     * @param title      the title; matched exactly, or ignoring case if no
+     *                   title matches exactly
+     * @param deptNo     the department the holders must currently belong
+     *                   to, or {@code null} for all departments
+     * @param afterEmpNo the last employee number of the previous page, or 0
+     * @param limit      the largest number of employees on the page
+     * @return the page, or {@code null} if the index has not been built
+     */
+    public static Page find(String title, String deptNo, int afterEmpNo, int limit) {
+        LOCK.readLock().lock();
+        try {
+            if (byTitle == null) {
+                return null;
+            }
+            BitSet holders = titleSet(title);
+            if (holders == null) {
+                return new Page(new int[0], 0, false);
+            }
+            if (deptNo != null) {
+                BitSet members = byDepartment.get(deptNo);
+                if (members == null) {
+                    return new Page(new int[0], 0, false);
+                }
+                holders = (BitSet) holders.clone();
+                holders.and(members);
+            }
+
+            int[] empNos = new int[limit];
+            int count = 0;
+            int empNo = holders.nextSetBit(afterEmpNo + 1);
+            while (empNo >= 0 && count < limit) {
+                empNos[count++] = empNo;
+                empNo = holders.nextSetBit(empNo + 1);
+            }
+            int[] page = count == limit ? empNos : Arrays.copyOf(empNos, count);
+            return new Page(page, holders.cardinality(), empNo >= 0);
+        } finally {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves an employee to the set of {@code title}, dropping title sets
+     * that become empty. Called with the write lock held.
+     */
+    private static void move(int empNo, String title) {
+        Iterator<BitSet> sets = byTitle.values().iterator();
+        while (sets.hasNext()) {
+            BitSet holders = sets.next();
+            holders.clear(empNo);
+            if (holders.isEmpty()) {
+                sets.remove();
+            }
+        }
+        byTitle.computeIfAbsent(title, t -> new BitSet()).set(empNo);
+    }
+
+    private static BitSet titleSet(String title) {
+        BitSet holders = byTitle.get(title);
+        if (holders != null) {
+            return holders;
+        }
+        for (Map.Entry<String, BitSet> entry : byTitle.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(title)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
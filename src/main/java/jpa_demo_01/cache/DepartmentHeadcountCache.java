@@ -0,0 +1,119 @@
+package jpa_demo_01.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process cache of per-department headcounts (rows in {@code dept_emp}).
+ *
+ * <p>The department listing needs the headcount of a department to validate
+ * the requested page number. Since {@code dept_emp} changes far less often
+ * than it is paged through, the counts are kept here, keyed by
+ * {@code deptNo}, instead of being recomputed with a {@code COUNT} on every
+ * request.</p>
+ *
+ * <p>Lifecycle:</p>
+ * <ul>
+ *     <li>Populated for every department at startup via {@link #putAll(Map)}.</li>
+ *     <li>Read by the department DAO via {@link #get(String)}, which records
+ *         a hit or a miss.</li>
+ *     <li>Kept current by write paths: anything that inserts or deletes
+ *         {@code dept_emp} rows must call {@link #increment(String, long)}
+ *         after its transaction commits, or {@link #invalidate(String)}
+ *         if the delta is not known.</li>
+ * </ul>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public final class DepartmentHeadcountCache {
+
+    /**
+     * Cached headcounts keyed by department number.
+     */
+    private static final Map<String, Long> HEADCOUNTS = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private DepartmentHeadcountCache() {}
+
+    /**
+     * Returns the cached headcount of a department.
+     *
+     * @param deptNo the department number
+     * @return the headcount, or {@code null} if the department is not cached
+     */
+    public static Long get(String deptNo) {
+        Long count = HEADCOUNTS.get(deptNo);
+        if (count != null) {
+            HITS.increment();
+        } else {
+            MISSES.increment();
+        }
+        return count;
+    }
+
+    /**
+     * Caches the headcount of a single department.
+     *
+     * @param deptNo the department number
+     * @param count  the number of {@code dept_emp} rows for that department
+     */
+    public static void put(String deptNo, long count) {
+        HEADCOUNTS.put(deptNo, count);
+    }
+
+    /**
+     * Replaces the cache content with the given headcounts.
+     *
+     * @param counts headcounts keyed by department number
+     */
+    public static void putAll(Map<String, Long> counts) {
+        HEADCOUNTS.clear();
+        HEADCOUNTS.putAll(counts);
+    }
+
+    /**
+     * Adjusts a cached headcount after a committed write to {@code dept_emp}.
+     *
+     * <p>Does nothing if the department is not cached; the next read will
+     * load the current value from the database.</p>
+     *
+     * @param deptNo the department number
+     * @param delta  the number of rows added (positive) or removed (negative)
+     */
+    public static void increment(String deptNo, long delta) {
+        HEADCOUNTS.computeIfPresent(deptNo, (key, count) -> count + delta);
+    }
+
+    /**
+     * Drops the cached headcount of a department.
+     *
+     * @param deptNo the department number
+     */
+    public static void invalidate(String deptNo) {
+        HEADCOUNTS.remove(deptNo);
+    }
+
+    /**
+     * Drops every cached headcount.
+     */
+    public static void invalidateAll() {
+        HEADCOUNTS.clear();
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to go to the database
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+}
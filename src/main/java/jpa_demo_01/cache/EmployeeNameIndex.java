@@ -0,0 +1,297 @@
+package jpa_demo_01.cache;
+
+import jpa_demo_01.dto.EmployeeInfoDTO;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process index of employee names for case-insensitive prefix search.
+ *
+ * <p>Searching {@code employees} by name in the database would need a
+ * {@code LIKE} on two columns for every keystroke of a search box. The
+ * index answers the same question from memory, in time that depends on the
+ * number of results rather than on the number of employees or on database
+ * load.</p>
+ *
+ * <p>Layout: every employee is held once in parallel arrays (number, names,
+ * hire date as an epoch day). The distinct lower-cased first and last names
+ * are kept in one sorted array, and each of them points at the run of
+ * employees carrying that name in a single shared {@code int[]}. A prefix is
+ * found with one binary search, after which the matching names are
+ * consecutive in the sorted array. The employees database has a few
+ * thousand distinct names, so the names take little room; most of the index
+ * is the {@code int}s.</p>
+ *
+ * <p>Lifecycle:</p>
+ * <ul>
+ *     <li>Built from all employees at startup via {@link #rebuild(List)}.</li>
+ *     <li>Read by the employee search via {@link #search(String, int)}.</li>
+ *     <li>Kept current by write paths: anything that inserts an employee
+ *         or changes a name or hire date must call
+ *         {@link #put(EmployeeInfoDTO)} after its transaction commits. Such
+ *         updates are kept in a small side map, searched alongside the
+ *         arrays, until the next rebuild.</li>
+ * </ul>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public final class EmployeeNameIndex {
+
+    /**
+     * Employees written since the last rebuild, keyed by employee number.
+     */
+    private static final Map<Integer, EmployeeInfoDTO> UPDATES = new ConcurrentHashMap<>();
+
+    /**
+     * The current index, or {@code null} until it is first built.
+     */
+    private static volatile Snapshot snapshot;
+
+    private EmployeeNameIndex() {}
+
+    /**
+     * Replaces the index with one built from the given employees.
+     *
+     * @param employees every employee
+     */
+    public static void rebuild(List<EmployeeInfoDTO> employees) {
+        Snapshot built = new Snapshot(employees);
+        snapshot = built;
+        // Updates committed before the employees were read are in the new
+        // arrays; later ones still differ from them and are kept
+        UPDATES.values().removeIf(built::contains);
+    }
+
+    /**
+     * Adds or replaces an employee after a committed write.
+     *
+     * @param employee the employee as written
+     */
+    public static void put(EmployeeInfoDTO employee) {
+        UPDATES.put(employee.getEmpNo(), employee);
+    }
+
+    /**
+     * Looks up an employee by number.
+     *
+     * @param empNo the employee number
+     * @return the employee, or {@code null} if it is not in the index
+     */
+    public static EmployeeInfoDTO get(int empNo) {
+        EmployeeInfoDTO updated = UPDATES.get(empNo);
+        if (updated != null) {
+            return updated;
+        }
+        Snapshot current = snapshot;
+        return current == null ? null : current.get(empNo);
+    }
+
+    /**
+     * @return whether the index has been built
+     */
+    public static boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return the number of employees in the index
+     */
+    public static int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.empNos.length;
+    }
+
+    /**
+     * Finds employees whose first or last name starts with {@code query},
+     * ignoring case. A query of two words, such as {@code "geo fac"},
+     * matches the first name with the first word and the last name with the
+     * second.
+     *
+     * <p>Results are ordered by the matching name, then by employee
+     * number.</p>
+     *
+     * @param query the name prefix; must not be blank
+     * @param limit the largest number of results
+     * @return the matching employees, or {@code null} if the index has not
+     *         been built
+     */
+    public static List<EmployeeInfoDTO> search(String query, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        String normalized = normalize(query.strip());
+        int space = normalized.indexOf(' ');
+        String prefix = space < 0 ? normalized : normalized.substring(0, space);
+        String lastPrefix = space < 0 ? null : normalized.substring(space + 1).strip();
+
+        List<EmployeeInfoDTO> results = new ArrayList<>();
+        for (EmployeeInfoDTO updated : UPDATES.values()) {
+            if (results.size() < limit && matches(normalize(updated.getFirstName()),
+                    normalize(updated.getLastName()), prefix, lastPrefix)) {
+                results.add(updated);
+            }
+        }
+        current.search(prefix, lastPrefix, limit, results);
+        return results;
+    }
+
+    private static boolean matches(String firstKey, String lastKey, String prefix,
+                                   String lastPrefix) {
+        if (lastPrefix != null) {
+            return firstKey.startsWith(prefix) && lastKey.startsWith(lastPrefix);
+        }
+        return firstKey.startsWith(prefix) || lastKey.startsWith(prefix);
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * An immutable index over one set of employees.
+     */
+    private static final class Snapshot {
+
+        /**
+         * Hire date of employees without one.
+         */
+        private static final int NO_DATE = Integer.MIN_VALUE;
+
+        // Employees by ordinal, in employee number order
+        private final int[] empNos;
+        private final String[] firstNames;
+        private final String[] lastNames;
+        private final int[] hireDays;
+        private final String[] firstKeys;
+        private final String[] lastKeys;
+
+        /**
+         * Distinct lower-cased names, sorted.
+         */
+        private final String[] keys;
+
+        /**
+         * The employees named {@code keys[k]} are
+         * {@code ordinals[starts[k]]} to {@code ordinals[starts[k + 1] - 1]}.
+         */
+        private final int[] starts;
+        private final int[] ordinals;
+
+        Snapshot(List<EmployeeInfoDTO> employees) {
+            List<EmployeeInfoDTO> sorted = new ArrayList<>(employees);
+            sorted.sort(Comparator.comparingInt(EmployeeInfoDTO::getEmpNo));
+            int size = sorted.size();
+            empNos = new int[size];
+            firstNames = new String[size];
+            lastNames = new String[size];
+            hireDays = new int[size];
+            firstKeys = new String[size];
+            lastKeys = new String[size];
+
+            // Names repeat a lot; keep one instance of each
+            Map<String, String> strings = new HashMap<>();
+            Set<String> distinct = new TreeSet<>();
+            for (int i = 0; i < size; i++) {
+                EmployeeInfoDTO employee = sorted.get(i);
+                empNos[i] = employee.getEmpNo();
+                firstNames[i] = intern(strings, employee.getFirstName());
+                lastNames[i] = intern(strings, employee.getLastName());
+                hireDays[i] = employee.getHireDate() == null
+                        ? NO_DATE : (int) employee.getHireDate().toEpochDay();
+                firstKeys[i] = intern(strings, normalize(firstNames[i]));
+                lastKeys[i] = intern(strings, normalize(lastNames[i]));
+                distinct.add(firstKeys[i]);
+                distinct.add(lastKeys[i]);
+            }
+            keys = distinct.toArray(new String[0]);
+
+            Map<String, Integer> keyIndexes = new HashMap<>(keys.length * 2);
+            for (int k = 0; k < keys.length; k++) {
+                keyIndexes.put(keys[k], k);
+            }
+            starts = new int[keys.length + 1];
+            for (int i = 0; i < size; i++) {
+                starts[keyIndexes.get(firstKeys[i]) + 1]++;
+                if (!lastKeys[i].equals(firstKeys[i])) {
+                    starts[keyIndexes.get(lastKeys[i]) + 1]++;
+                }
+            }
+            for (int k = 0; k < keys.length; k++) {
+                starts[k + 1] += starts[k];
+            }
+            ordinals = new int[starts[keys.length]];
+            int[] next = Arrays.copyOf(starts, keys.length);
+            for (int i = 0; i < size; i++) {
+                ordinals[next[keyIndexes.get(firstKeys[i])]++] = i;
+                if (!lastKeys[i].equals(firstKeys[i])) {
+                    ordinals[next[keyIndexes.get(lastKeys[i])]++] = i;
+                }
+            }
+        }
+
+        /**
+         * Appends the employees matching a search to {@code results}, up to
+         * {@code limit}, skipping those superseded by {@link #UPDATES}.
+         */
+        void search(String prefix, String lastPrefix, int limit, List<EmployeeInfoDTO> results) {
+            int k = Arrays.binarySearch(keys, prefix);
+            if (k < 0) {
+                k = -k - 1;
+            }
+            Set<Integer> added = new HashSet<>();
+            for (; k < keys.length && keys[k].startsWith(prefix); k++) {
+                for (int p = starts[k]; p < starts[k + 1]; p++) {
+                    if (results.size() >= limit) {
+                        return;
+                    }
+                    int ordinal = ordinals[p];
+                    if (matches(firstKeys[ordinal], lastKeys[ordinal], prefix, lastPrefix)
+                            && !UPDATES.containsKey(empNos[ordinal])
+                            && added.add(ordinal)) {
+                        results.add(toDto(ordinal));
+                    }
+                }
+            }
+        }
+
+        EmployeeInfoDTO get(int empNo) {
+            int ordinal = Arrays.binarySearch(empNos, empNo);
+            return ordinal < 0 ? null : toDto(ordinal);
+        }
+
+        /**
+         * Tells whether the index holds an employee exactly as given.
+         */
+        boolean contains(EmployeeInfoDTO employee) {
+            EmployeeInfoDTO indexed = get(employee.getEmpNo());
+            if (indexed == null) {
+                return false;
+            }
+            return Objects.equals(indexed.getFirstName(), employee.getFirstName())
+                    && Objects.equals(indexed.getLastName(), employee.getLastName())
+                    && Objects.equals(indexed.getHireDate(), employee.getHireDate());
+        }
+
+        private EmployeeInfoDTO toDto(int ordinal) {
+            return new EmployeeInfoDTO(empNos[ordinal], firstNames[ordinal], lastNames[ordinal],
+                    hireDays[ordinal] == NO_DATE ? null : LocalDate.ofEpochDay(hireDays[ordinal]));
+        }
+
+        private static String intern(Map<String, String> strings, String value) {
+            return value == null ? null : strings.computeIfAbsent(value, v -> v);
+        }
+    }
+}
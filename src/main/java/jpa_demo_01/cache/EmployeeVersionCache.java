@@ -0,0 +1,99 @@
+package jpa_demo_01.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cache of employee {@code version}s, to answer conditional
+ * requests for an employee without a database lookup.
+ *
+ * <p>The {@code ETag} of an employee is derived from its version, which
+ * every promotion increments. A request carrying {@code If-None-Match} is
+ * checked against the version held here on the container thread, so the
+ * check must not open an {@code EntityManager}: the versions are kept in a
+ * plain map, keyed by {@code empNo}.</p>
+ *
+ * <p>Lifecycle:</p>
+ * <ul>
+ *     <li>Filled with the version of every employee a response is sent
+ *         for, via {@link #advance(int, int)}.</li>
+ *     <li>Read by the conditional request check via {@link #get(int)}.</li>
+ *     <li>Kept current by write paths: anything that increments a version
+ *         must call {@link #advance(int, int)} with the new version after
+ *         its transaction commits.</li>
+ * </ul>
+ *
+ * <p>Versions only grow, so {@link #advance(int, int)} keeps the highest
+ * version it has seen: a response built from a row read before a
+ * promotion committed cannot bring back the older version. Entries expire
+ * after {@value #MAX_AGE_MINUTES} minutes, like the {@code Employee} cache
+ * region, which bounds how long a promotion made by another instance goes
+ * unnoticed. The cache holds at most {@value #MAX_ENTRIES} employees.</p>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public final class EmployeeVersionCache {
+
+    private static final int MAX_ENTRIES = 50_000;
+    private static final long MAX_AGE_MINUTES = 30;
+    private static final long MAX_AGE_NANOS = TimeUnit.MINUTES.toNanos(MAX_AGE_MINUTES);
+
+    /**
+     * Cached versions keyed by employee number.
+     */
+    private static final Map<Integer, Entry> VERSIONS = new ConcurrentHashMap<>();
+
+    private EmployeeVersionCache() {}
+
+    /**
+     * Returns the cached version of an employee.
+     *
+     * @param empNo the employee number
+     * @return the version, or {@code null} if the employee is not cached or
+     *         its entry has expired
+     */
+    public static Integer get(int empNo) {
+        Entry entry = VERSIONS.get(empNo);
+        if (entry == null || entry.isExpired(System.nanoTime())) {
+            return null;
+        }
+        return entry.version();
+    }
+
+    /**
+     * Records a committed version of an employee, unless a higher one is
+     * already cached.
+     *
+     * @param empNo   the employee number
+     * @param version the version as read or written
+     */
+    public static void advance(int empNo, int version) {
+        long now = System.nanoTime();
+        VERSIONS.merge(empNo, new Entry(version, now), (cached, added) ->
+                cached.version() > version && !cached.isExpired(now) ? cached : added);
+        if (VERSIONS.size() > MAX_ENTRIES) {
+            trim(now);
+        }
+    }
+
+    /**
+     * Drops expired entries, and everything if the cache is still full.
+     */
+    private static void trim(long now) {
+        VERSIONS.values().removeIf(entry -> entry.isExpired(now));
+        if (VERSIONS.size() > MAX_ENTRIES) {
+            VERSIONS.clear();
+        }
+    }
+
+    /**
+     * A cached version and the time it was recorded, from {@link System#nanoTime()}.
+     */
+    private record Entry(int version, long recordedAt) {
+
+        boolean isExpired(long now) {
+            return now - recordedAt > MAX_AGE_NANOS;
+        }
+    }
+}
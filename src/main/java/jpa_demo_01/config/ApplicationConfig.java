@@ -1,6 +1,7 @@
 package jpa_demo_01.config;
 
 import jakarta.ws.rs.ApplicationPath;
+import jpa_demo_01.metrics.MetricsFilter;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 
@@ -18,6 +19,12 @@ import org.glassfish.jersey.server.ResourceConfig;
  *     <li>Configures Jersey to scan the {@code jpa_demo_01.resource} package
  *         for classes annotated with {@code @Path}.</li>
  *     <li>Enables Jackson support for JSON serialization/deserialization.</li>
+ *     <li>Registers {@link StartupListener} for startup and shutdown work.</li>
+ *     <li>Registers {@link MetricsFilter}, which feeds {@code /metrics}.</li>
+ *     <li>Registers {@link CompressionInterceptor} for gzip/deflate responses.</li>
+ *     <li>Registers {@link BinaryJacksonProvider} for CBOR and Smile entities.</li>
+ *     <li>Registers {@link ConditionalGetFilter} for ETags and HTTP 304 on
+ *         {@link Versioned} resource methods.</li>
  * </ul>
  *
  * @see org.glassfish.jersey.server.ResourceConfig
@@ -33,7 +40,13 @@ public class ApplicationConfig extends ResourceConfig {
      * <p>Configuration steps:
      * <ul>
      *     <li>Registers the {@code jpa_demo_01.resource} package for resource scanning.</li>
-     *     <li>Enables Jackson JSON support via {@link JacksonFeature}.</li>
+     *     <li>Enables Jackson JSON support via {@link JacksonFeature}, using the
+     *         mapper supplied by {@link ObjectMapperProvider}.</li>
+     *     <li>Registers the {@link StartupListener} lifecycle listener.</li>
+     *     <li>Registers the {@link MetricsFilter} request metrics filter.</li>
+     *     <li>Registers the {@link CompressionInterceptor} response compressor.</li>
+     *     <li>Registers the {@link BinaryJacksonProvider} CBOR/Smile entity provider.</li>
+     *     <li>Registers the {@link ConditionalGetFilter} ETag filter.</li>
      * </ul>
      */
     public ApplicationConfig() {
@@ -42,5 +55,21 @@ public class ApplicationConfig extends ResourceConfig {
 
         // Enable Jackson JSON support
         register(JacksonFeature.class);
+        register(ObjectMapperProvider.class);
+
+        // CBOR and Smile for clients that ask for them
+        register(BinaryJacksonProvider.class);
+
+        // Warm caches on startup, release the EntityManagerFactory on shutdown
+        register(StartupListener.class);
+
+        // Per-route latency, status, size and statement metrics
+        register(MetricsFilter.class);
+
+        // gzip/deflate response bodies, negotiated via Accept-Encoding
+        register(CompressionInterceptor.class);
+
+        // ETags and 304 responses for @Versioned resource methods
+        register(ConditionalGetFilter.class);
     }
 }
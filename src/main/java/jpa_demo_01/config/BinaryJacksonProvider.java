@@ -0,0 +1,108 @@
+package jpa_demo_01.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes entities as CBOR or Smile, the binary counterparts of
+ * JSON, for clients that ask for them in {@code Accept} (or send them as
+ * {@code Content-Type}).
+ *
+ * <p>The same entities and DTOs are used as for JSON, through the CBOR and
+ * Smile mappers of {@link ObjectMapperProvider}, which are configured like
+ * the JSON mapper; only the encoding differs. Resources list the binary
+ * types with a lower server quality ({@value #CBOR_QS},
+ * {@value #SMILE_QS}), so JSON stays the default for clients that accept
+ * anything.</p>
+ *
+ * <p>Mappers are used directly rather than through
+ * {@code ContextResolver<ObjectMapper>}, whose JSON mapper applies to every
+ * media type.</p>
+ */
+@Provider
+@Produces({BinaryJacksonProvider.CBOR, BinaryJacksonProvider.SMILE})
+@Consumes({BinaryJacksonProvider.CBOR, BinaryJacksonProvider.SMILE})
+public class BinaryJacksonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    /**
+     * Media type of CBOR (RFC 8949).
+     */
+    public static final String CBOR = "application/cbor";
+
+    /**
+     * Media type of Jackson's Smile format.
+     */
+    public static final String SMILE = "application/x-jackson-smile";
+
+    /**
+     * {@link #CBOR} as listed in resource {@code @Produces}, below JSON.
+     */
+    public static final String CBOR_QS = CBOR + ";qs=0.9";
+
+    /**
+     * {@link #SMILE} as listed in resource {@code @Produces}, below JSON.
+     */
+    public static final String SMILE_QS = SMILE + ";qs=0.9";
+
+    private static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+    private static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations,
+                              MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations,
+                           MediaType mediaType, MultivaluedMap<String, String> httpHeaders,
+                           InputStream entityStream) throws IOException, WebApplicationException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        return mapper.readerFor(mapper.constructType(genericType)).readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
+                               MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException, WebApplicationException {
+        mapperFor(mediaType).writeValue(entityStream, value);
+    }
+
+    /**
+     * Returns the mapper for a binary media type.
+     *
+     * @param mediaType the negotiated media type
+     * @return the CBOR or Smile mapper, or {@code null} for other types
+     */
+    private static ObjectMapper mapperFor(MediaType mediaType) {
+        if (mediaType == null || mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+            return null;
+        }
+        if (CBOR_TYPE.isCompatible(mediaType)) {
+            return ObjectMapperProvider.getCborMapper();
+        }
+        if (SMILE_TYPE.isCompatible(mediaType)) {
+            return ObjectMapperProvider.getSmileMapper();
+        }
+        return null;
+    }
+}
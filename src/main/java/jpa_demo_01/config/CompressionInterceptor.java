@@ -0,0 +1,348 @@
+package jpa_demo_01.config;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses response bodies with {@code gzip} or {@code deflate}, as
+ * negotiated with the request's {@code Accept-Encoding} header.
+ *
+ * <p>The response filter picks the encoding and adds
+ * {@code Vary: Accept-Encoding}; the writer interceptor then streams the
+ * body through a compressor, so a large body is never held in memory as a
+ * whole. The first {@code api.compression.minBytes} bytes are held back:
+ * a body that ends before reaching that size is sent as is, without a
+ * {@code Content-Encoding} header, since compressing it would save little.</p>
+ *
+ * <p>Each compressed response borrows a {@link Deflater} together with its
+ * buffers from a small pool and returns it when done, so compression does
+ * not allocate native zlib state or buffers per request.</p>
+ *
+ * <p>Runs closer to the wire than {@link jpa_demo_01.metrics.MetricsFilter},
+ * whose byte counts therefore report the uncompressed body size.</p>
+ *
+ * <p>Configured with JVM system properties:</p>
+ * <ul>
+ *     <li>{@code api.compression.enabled} — {@code true} (default) to
+ *         compress responses.</li>
+ *     <li>{@code api.compression.minBytes} — smallest body compressed
+ *         (default {@value #DEFAULT_MIN_BYTES}).</li>
+ * </ul>
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements ContainerResponseFilter, WriterInterceptor {
+
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private static final String ENCODING_PROPERTY =
+            CompressionInterceptor.class.getName() + ".encoding";
+
+    private static final int DEFAULT_MIN_BYTES = 1024;
+
+    /**
+     * Size of the buffer receiving compressed output.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    /**
+     * Compressors kept for reuse, per encoding.
+     */
+    private static final int POOL_SIZE = 64;
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("api.compression.enabled", "true"));
+
+    private static final int MIN_BYTES =
+            Integer.getInteger("api.compression.minBytes", DEFAULT_MIN_BYTES);
+
+    private static final BlockingQueue<Compressor> GZIP_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Compressor> DEFLATE_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * Fixed gzip member header: deflate, no flags, no mtime, unknown OS.
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!ENABLED || !response.hasEntity()
+                || response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return;
+        }
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String encoding = negotiate(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != null) {
+            request.setProperty(ENCODING_PROPERTY, encoding);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        String encoding = (String) context.getProperty(ENCODING_PROPERTY);
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        CompressingOutputStream compressing = new CompressingOutputStream(
+                context.getOutputStream(), context.getHeaders(), encoding);
+        context.setOutputStream(compressing);
+        try {
+            context.proceed();
+            compressing.finish();
+        } finally {
+            compressing.release();
+        }
+    }
+
+    /**
+     * Returns the content coding a response to a request with the given
+     * {@code Accept-Encoding} header would be compressed with, if large
+     * enough.
+     *
+     * @param acceptEncoding the header value; may be {@code null}
+     * @return {@code gzip}, {@code deflate}, or {@code null} for no compression
+     */
+    static String encodingFor(String acceptEncoding) {
+        return ENABLED ? negotiate(acceptEncoding) : null;
+    }
+
+    /**
+     * Picks the encoding with the highest quality value in an
+     * {@code Accept-Encoding} header, preferring gzip on ties.
+     *
+     * @param acceptEncoding the header value; may be {@code null}
+     * @return {@code gzip}, {@code deflate}, or {@code null} for no compression
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        double gzip = 0;
+        double deflate = 0;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case GZIP, "x-gzip" -> gzip = Math.max(gzip, quality);
+                case DEFLATE -> deflate = Math.max(deflate, quality);
+                case "*" -> any = quality;
+                default -> {
+                    // encodings we do not produce
+                }
+            }
+        }
+        if (any >= 0) {
+            // "*" stands for every coding not listed explicitly
+            if (!acceptEncoding.contains(GZIP)) {
+                gzip = any;
+            }
+            if (!acceptEncoding.contains(DEFLATE)) {
+                deflate = any;
+            }
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * A pooled {@link Deflater} with its checksum and buffers.
+     */
+    private static final class Compressor {
+
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final byte[] held = new byte[MIN_BYTES];
+        final byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+
+        Compressor(boolean gzip) {
+            // gzip writes its own header and trailer around raw deflate data;
+            // HTTP "deflate" means the zlib format
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+        }
+
+        static Compressor borrow(boolean gzip) {
+            Compressor compressor = (gzip ? GZIP_POOL : DEFLATE_POOL).poll();
+            return compressor != null ? compressor : new Compressor(gzip);
+        }
+
+        void giveBack(boolean gzip) {
+            deflater.reset();
+            crc.reset();
+            if (!(gzip ? GZIP_POOL : DEFLATE_POOL).offer(this)) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Holds back the start of the body until it is known to reach the
+     * compression threshold, then compresses everything written to it.
+     */
+    private static final class CompressingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final MultivaluedMap<String, Object> headers;
+        private final String encoding;
+        private final boolean gzip;
+        private final byte[] single = new byte[1];
+
+        private Compressor compressor;
+
+        /**
+         * Bytes held back in {@code compressor.held} while undecided.
+         */
+        private int held;
+        private boolean compressing;
+        private boolean finished;
+
+        CompressingOutputStream(OutputStream out, MultivaluedMap<String, Object> headers,
+                                String encoding) {
+            this.out = out;
+            this.headers = headers;
+            this.encoding = encoding;
+            this.gzip = GZIP.equals(encoding);
+            this.compressor = Compressor.borrow(gzip);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressing) {
+                deflate(b, off, len);
+            } else if (held + len <= MIN_BYTES) {
+                System.arraycopy(b, off, compressor.held, held, len);
+                held += len;
+            } else {
+                startCompressing();
+                deflate(b, off, len);
+            }
+        }
+
+        /**
+         * Held-back bytes are kept until the body is complete, since sending
+         * them would commit the headers before the encoding is decided.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (compressing) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            out.close();
+        }
+
+        /**
+         * Writes out whatever is pending: the held-back body as is, or the
+         * end of the compressed stream.
+         */
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (!compressing) {
+                out.write(compressor.held, 0, held);
+                return;
+            }
+
+            Deflater deflater = compressor.deflater;
+            deflater.finish();
+            while (!deflater.finished()) {
+                writeOutput(deflater.deflate(compressor.output));
+            }
+            if (gzip) {
+                writeIntLE((int) compressor.crc.getValue());
+                writeIntLE((int) deflater.getBytesRead());
+            }
+        }
+
+        /**
+         * Returns the compressor to the pool; the stream is unusable afterwards.
+         */
+        void release() {
+            finished = true;
+            if (compressor != null) {
+                compressor.giveBack(gzip);
+                compressor = null;
+            }
+        }
+
+        private void startCompressing() throws IOException {
+            compressing = true;
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+            // deflate() consumes all its input, so the array is free again afterwards
+            deflate(compressor.held, 0, held);
+            held = 0;
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+            if (gzip) {
+                compressor.crc.update(b, off, len);
+            }
+            Deflater deflater = compressor.deflater;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                writeOutput(deflater.deflate(compressor.output));
+            }
+        }
+
+        private void writeOutput(int length) throws IOException {
+            if (length > 0) {
+                out.write(compressor.output, 0, length);
+            }
+        }
+
+        private void writeIntLE(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >>> 8) & 0xff);
+            out.write((value >>> 16) & 0xff);
+            out.write((value >>> 24) & 0xff);
+        }
+    }
+}
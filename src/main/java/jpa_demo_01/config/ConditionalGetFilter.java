@@ -0,0 +1,166 @@
+package jpa_demo_01.config;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adds strong {@code ETag}s to the responses of {@link Versioned} resource
+ * methods and answers {@code If-None-Match} with HTTP 304 (Not Modified).
+ *
+ * <p>The tag is derived from a version token supplied by the resource's
+ * {@link VersionSource} rather than from the body. On a plain request the
+ * token is taken from the entity the resource method returned, so
+ * unconditional requests cost nothing extra. On a request with
+ * {@code If-None-Match} the source is first asked for the current token
+ * from memory; if it lists the current tag, the request is answered from
+ * the request filter without loading or serializing anything. If the
+ * source cannot tell without the database, the request is served in full
+ * through the resource method.</p>
+ *
+ * <p>A tag looks like {@code "e10001.3-5f2a91c0"}: the version token
+ * followed by a hash of the {@code Accept} header and of the content coding
+ * {@link CompressionInterceptor} will apply, so each representation of the
+ * same version has its own tag.</p>
+ *
+ * <p>Tokens must not depend on the instance, so that clients behind a load
+ * balancer revalidate successfully against any of them.</p>
+ */
+@Provider
+@Priority(Priorities.HEADER_DECORATOR)
+public class ConditionalGetFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String SOURCE_PROPERTY = ConditionalGetFilter.class.getName() + ".source";
+
+    /**
+     * Version sources keyed by resource method; empty for methods that are
+     * not {@link Versioned}.
+     */
+    private static final Map<Method, Optional<VersionSource>> SOURCES = new ConcurrentHashMap<>();
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return;
+        }
+        Method resourceMethod = resourceInfo.getResourceMethod();
+        if (resourceMethod == null) {
+            return;
+        }
+        VersionSource source = SOURCES.computeIfAbsent(resourceMethod,
+                ConditionalGetFilter::sourceOf).orElse(null);
+        if (source == null) {
+            return;
+        }
+
+        request.setProperty(SOURCE_PROPERTY, source);
+
+        String ifNoneMatch = request.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return;
+        }
+        String version;
+        try {
+            version = source.currentVersion(request);
+        } catch (RuntimeException e) {
+            // let the resource method report the failure
+            e.printStackTrace();
+            return;
+        }
+        if (version == null) {
+            return;
+        }
+
+        String tag = tagOf(request, version);
+        if (matches(ifNoneMatch, tag)) {
+            request.abortWith(Response.notModified()
+                    .header(HttpHeaders.ETAG, tag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object source = request.getProperty(SOURCE_PROPERTY);
+        if (source == null || response.getStatus() != Response.Status.OK.getStatusCode()) {
+            return;
+        }
+        String version = ((VersionSource) source).versionOf(request, response.getEntity());
+        if (version != null) {
+            response.getHeaders().putSingle(HttpHeaders.ETAG, tagOf(request, version));
+            response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    private static Optional<VersionSource> sourceOf(Method method) {
+        Versioned versioned = method.getAnnotation(Versioned.class);
+        if (versioned == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(versioned.value().getConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + versioned.value().getName(), e);
+        }
+    }
+
+    private static String tagOf(ContainerRequestContext request, String version) {
+        return "\"" + version + "-" + variantOf(request) + "\"";
+    }
+
+    /**
+     * Hashes what else, besides the version, decides the bytes of the
+     * response: the media type and the content coding.
+     */
+    private static String variantOf(ContainerRequestContext request) {
+        String accept = request.getHeaderString(HttpHeaders.ACCEPT);
+        String encoding = CompressionInterceptor.encodingFor(
+                request.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        return Integer.toHexString(Objects.hash(accept, encoding));
+    }
+
+    /**
+     * Checks an {@code If-None-Match} header against the current tag, using
+     * the weak comparison RFC 9110 prescribes for it.
+     *
+     * @param ifNoneMatch the header value; may be {@code null}
+     * @param tag         the current tag, quoted
+     * @return whether the client already has the current representation
+     */
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
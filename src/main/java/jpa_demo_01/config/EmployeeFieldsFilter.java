@@ -0,0 +1,30 @@
+package jpa_demo_01.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import jpa_demo_01.dto.EmployeeView;
+
+import java.util.Set;
+
+/**
+ * The {@value jpa_demo_01.entity.Employee#FIELDS_FILTER} property filter:
+ * writes only the employee properties selected through an
+ * {@link EmployeeView}, or all of them when the employee is written
+ * directly.
+ */
+class EmployeeFieldsFilter extends SimpleBeanPropertyFilter {
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider,
+                                 PropertyWriter writer) throws Exception {
+        @SuppressWarnings("unchecked")
+        Set<String> fields = (Set<String>) provider.getAttribute(EmployeeView.FIELDS_ATTRIBUTE);
+        if (fields == null || fields.contains(writer.getName())) {
+            writer.serializeAsField(pojo, gen, provider);
+        } else if (!gen.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, gen, provider);
+        }
+    }
+}
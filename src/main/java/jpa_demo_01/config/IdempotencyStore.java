@@ -0,0 +1,248 @@
+package jpa_demo_01.config;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of requests sent with an
+ * {@value #KEY_HEADER} header, so that a client retrying such a request gets
+ * the original response back instead of the request being applied again.
+ *
+ * <p>Each key is bound to a fingerprint of the request it was first used
+ * with. A retry with the same key and fingerprint is answered from memory
+ * with the stored status and body plus an {@value #REPLAYED_HEADER} header;
+ * the same key with a different request is rejected with HTTP 422
+ * (Unprocessable Entity), and a retry arriving while the original is still
+ * running gets HTTP 409 (Conflict).</p>
+ *
+ * <p>Only final outcomes are stored: responses with status 409 or 5xx say
+ * nothing about what a retry would do, so their key is released and the
+ * retry runs normally.</p>
+ *
+ * <p>The store keeps keys in memory per application instance, in the order
+ * they were first used. Keys expire a fixed time after that, and the oldest
+ * completed keys are dropped once the store is full; a key whose request is
+ * still running is never dropped. Configured with JVM system properties:</p>
+ * <ul>
+ *     <li>{@code api.idempotency.ttlMs} — how long a key is remembered, in
+ *         milliseconds (default {@value #DEFAULT_TTL_MS}).</li>
+ *     <li>{@code api.idempotency.maxKeys} — how many keys are remembered at
+ *         most (default {@value #DEFAULT_MAX_KEYS}).</li>
+ * </ul>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public final class IdempotencyStore {
+
+    /**
+     * Request header carrying the client-chosen idempotency key.
+     */
+    public static final String KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * Response header set on responses replayed from the store.
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * Longest accepted idempotency key.
+     */
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final long DEFAULT_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private static final int DEFAULT_MAX_KEYS = 100_000;
+
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("api.idempotency.ttlMs", DEFAULT_TTL_MS));
+
+    private static final int MAX_KEYS =
+            Integer.getInteger("api.idempotency.maxKeys", DEFAULT_MAX_KEYS);
+
+    /**
+     * Stored entries by key, in the order the keys were reserved, which is
+     * also the order they expire in. Guarded by its own monitor.
+     */
+    private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<>();
+
+    private IdempotencyStore() {}
+
+    /**
+     * A remembered key: the request fingerprint and, once the request has
+     * completed, its response. {@code status == 0} while the request runs.
+     */
+    private record Entry(String fingerprint, long expiresAt, int status, Object entity) {
+
+        boolean isCompleted() {
+            return status != 0;
+        }
+    }
+
+    /**
+     * Answers a retry from the store without running anything.
+     *
+     * <p>Meant to be called before the request is queued for a database
+     * connection; a request whose key is unknown or still running returns
+     * {@code null} and should go on to {@link #execute}.</p>
+     *
+     * @param key         the idempotency key, or {@code null} if the request has none
+     * @param fingerprint the fingerprint of the current request
+     * @return the response to send, or {@code null} to process the request
+     */
+    public static Response replay(String key, String fingerprint) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return invalidKey();
+        }
+        synchronized (ENTRIES) {
+            purgeExpired(System.nanoTime());
+            Entry entry = ENTRIES.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.fingerprint().equals(fingerprint)) {
+                return keyReused(key);
+            }
+            return entry.isCompleted() ? replayed(entry) : null;
+        }
+    }
+
+    /**
+     * Runs {@code work} once per key and remembers its response.
+     *
+     * <p>Without a key, {@code work} simply runs. Otherwise the key is
+     * reserved before {@code work} starts; a concurrent request with the same
+     * key is turned away with HTTP 409 rather than run twice.</p>
+     *
+     * @param key         the idempotency key, or {@code null} if the request has none
+     * @param fingerprint the fingerprint of the current request
+     * @param work        produces the response of the request
+     * @return the response of {@code work}, or the stored response of an
+     *         earlier request with the same key
+     */
+    public static Response execute(String key, String fingerprint, Supplier<Response> work) {
+        if (key == null || key.isBlank()) {
+            return work.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return invalidKey();
+        }
+
+        synchronized (ENTRIES) {
+            long now = System.nanoTime();
+            purgeExpired(now);
+            Entry entry = ENTRIES.get(key);
+            if (entry != null) {
+                if (!entry.fingerprint().equals(fingerprint)) {
+                    return keyReused(key);
+                }
+                if (entry.isCompleted()) {
+                    return replayed(entry);
+                }
+                return Response.status(Response.Status.CONFLICT)
+                        .type(MediaType.TEXT_PLAIN_TYPE)
+                        .entity("A request with " + KEY_HEADER + " '" + key +
+                                "' is still in progress")
+                        .build();
+            }
+            put(key, new Entry(fingerprint, now + TTL_NANOS, 0, null));
+        }
+
+        Response response = null;
+        try {
+            response = work.get();
+            return response;
+        } finally {
+            synchronized (ENTRIES) {
+                Entry reserved = ENTRIES.get(key);
+                int status = response == null ? 0 : response.getStatus();
+                if (reserved != null && isFinal(status)) {
+                    // replacing the value keeps the key's place, so the map
+                    // stays in expiry order
+                    ENTRIES.put(key, new Entry(fingerprint, reserved.expiresAt(), status,
+                            response.getEntity()));
+                } else {
+                    ENTRIES.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether a status is worth replaying: retries of 409 and 5xx
+     * responses may succeed and are run again.
+     */
+    private static boolean isFinal(int status) {
+        return status != 0
+                && status != Response.Status.CONFLICT.getStatusCode()
+                && status < 500;
+    }
+
+    /**
+     * Adds an entry, dropping the oldest completed one if the store is full.
+     * Requests still running are skipped: dropping their key would let a
+     * retry run them a second time. They are few (bounded by the requests
+     * running at once), so the store may briefly hold more than
+     * {@code MAX_KEYS} entries when nothing else can go.
+     */
+    private static void put(String key, Entry entry) {
+        ENTRIES.put(key, entry);
+        if (ENTRIES.size() > MAX_KEYS) {
+            Iterator<Entry> oldest = ENTRIES.values().iterator();
+            while (oldest.hasNext()) {
+                if (oldest.next().isCompleted()) {
+                    oldest.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes expired entries. Entries are kept in reservation order and all
+     * live for the same time, so expired ones are always at the head.
+     * Expired entries of requests still running are kept until they
+     * complete.
+     */
+    private static void purgeExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> it = ENTRIES.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.expiresAt() - now > 0) {
+                break;
+            }
+            if (entry.isCompleted()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static Response replayed(Entry entry) {
+        return Response.status(entry.status())
+                .entity(entry.entity())
+                .header(REPLAYED_HEADER, "true")
+                .build();
+    }
+
+    private static Response keyReused(String key) {
+        return Response.status(422)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .entity(KEY_HEADER + " '" + key + "' was already used for a different request")
+                .build();
+    }
+
+    private static Response invalidKey() {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .entity(KEY_HEADER + " must be at most " + MAX_KEY_LENGTH + " characters")
+                .build();
+    }
+}
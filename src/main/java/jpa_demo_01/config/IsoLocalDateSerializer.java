@@ -0,0 +1,61 @@
+package jpa_demo_01.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes {@link LocalDate} values as {@code yyyy-MM-dd} strings, the format
+ * every {@code @JsonFormat} date in the entities and DTOs asks for.
+ *
+ * <p>The string of each day between 1900 and 2100 is built once and then
+ * reused, as is the open-ended {@code 9999-01-01} of current history rows,
+ * so writing a date allocates nothing. Other dates are formatted on the
+ * fly.</p>
+ */
+final class IsoLocalDateSerializer extends StdSerializer<LocalDate> {
+
+    private static final long FIRST_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+    private static final int DAYS = (int) (LocalDate.of(2100, 1, 1).toEpochDay() - FIRST_DAY);
+
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 1, 1);
+    private static final String MAX_DATE_STRING = MAX_DATE.toString();
+
+    /**
+     * Formatted days by offset from {@link #FIRST_DAY}, filled on first use.
+     * Strings are immutable, so racing writers at worst format a day twice.
+     */
+    private static final String[] STRINGS = new String[DAYS];
+
+    IsoLocalDateSerializer() {
+        super(LocalDate.class);
+    }
+
+    @Override
+    public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        gen.writeString(format(value));
+    }
+
+    /**
+     * Formats a date as {@code yyyy-MM-dd}.
+     *
+     * @param value the date
+     * @return the formatted date
+     */
+    static String format(LocalDate value) {
+        long index = value.toEpochDay() - FIRST_DAY;
+        if (index >= 0 && index < DAYS) {
+            String string = STRINGS[(int) index];
+            if (string == null) {
+                string = value.toString();
+                STRINGS[(int) index] = string;
+            }
+            return string;
+        }
+        return value.equals(MAX_DATE) ? MAX_DATE_STRING : value.toString();
+    }
+}
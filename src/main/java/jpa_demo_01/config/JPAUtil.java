@@ -1,8 +1,29 @@
 package jpa_demo_01.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import jpa_demo_01.dto.PoolStatsDTO;
+import jpa_demo_01.metrics.Histogram;
+import jpa_demo_01.metrics.PoolMetricsTracker;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class providing access to the application's singleton
@@ -13,10 +34,31 @@ import jakarta.persistence.Persistence;
  * to supply new {@link jakarta.persistence.EntityManager} instances to DAOs
  * and resources whenever they need database access.
  *
+ * <p>The factory runs over a HikariCP connection pool built here from
+ * {@code db.properties} on the classpath. Every setting in that file can be
+ * overridden with a JVM system property of the same name, e.g.
+ * {@code -Ddb.pool.maximumPoolSize=40}. Likewise, {@code -Dhibernate.*}
+ * system properties override the matching {@code persistence.xml} property.</p>
+ *
+ * <p>Besides the primary (writer) factory, one reader factory is created per
+ * read replica listed in {@code db.reader.urls}, each over its own pool.
+ * Reads obtain their EntityManager from {@link #getReadEntityManager(String, Integer)},
+ * which spreads them round-robin over the replicas unless
+ * {@link ReadRouter} asks for the primary. Without replicas every read goes
+ * to the primary.</p>
+ *
+ * <p>Whole-department exports hold their connection for as long as the
+ * client takes to read the stream, far beyond any request deadline. They
+ * get their EntityManager from {@link #getExportEntityManager()}, over a
+ * small pool of their own without leak detection, so that the other pools
+ * can keep a threshold matching their short request paths.</p>
+ *
  * <p>Responsibilities:
  * <ul>
- *     <li>Centralizes creation of EntityManagerFactory.</li>
- *     <li>Provides EntityManager instances via {@link #getEntityManager()}.</li>
+ *     <li>Centralizes creation of the connection pools and EntityManagerFactories.</li>
+ *     <li>Provides EntityManager instances via {@link #getEntityManager()}
+ *         (primary) and {@link #getReadEntityManager(String, Integer)}.</li>
+ *     <li>Exposes live pool statistics via {@link #getPoolStats()}.</li>
  *     <li>Optionally supports clean shutdown using {@link #close()}.</li>
  * </ul>
  *
@@ -27,6 +69,11 @@ import jakarta.persistence.Persistence;
 
 public class JPAUtil {
 
+    /**
+     * Classpath resource holding the connection and pool settings.
+     */
+    private static final String SETTINGS_RESOURCE = "/db.properties";
+
     /**
      * Singleton {@link EntityManagerFactory} used across the application.
      * <p>The name must match the persistence-unit name in {@code persistence.xml}
@@ -34,17 +81,71 @@ public class JPAUtil {
      */
     private static EntityManagerFactory emf;
 
+    /**
+     * Connection pool backing {@link #emf}.
+     */
+    private static HikariDataSource dataSource;
+
+    /**
+     * Reader factories, one per read replica; empty when there are none.
+     */
+    private static volatile List<EntityManagerFactory> readers = List.of();
+
+    /**
+     * Connection pools backing {@link #readers}, in the same order.
+     */
+    private static List<HikariDataSource> readerDataSources = List.of();
+
+    /**
+     * Factory for streaming exports, over {@link #exportDataSource}.
+     */
+    private static EntityManagerFactory exportFactory;
+
+    /**
+     * Connection pool backing {@link #exportFactory}: sized by
+     * {@code db.export.maximumPoolSize}, without leak detection.
+     */
+    private static HikariDataSource exportDataSource;
+
+    /**
+     * Round-robin position over {@link #readers}.
+     */
+    private static final AtomicInteger nextReader = new AtomicInteger();
+
+    /**
+     * Connection wait-time metrics of all pools.
+     */
+    private static final PoolMetricsTracker poolMetrics = new PoolMetricsTracker();
+
     private JPAUtil() {}
 
+    /**
+     * Returns the primary (writer) factory, creating it and the reader
+     * factories on first use.
+     *
+     * @return the primary {@link EntityManagerFactory}
+     */
     public static synchronized EntityManagerFactory getEntityManagerFactory() {
         if (emf == null) {
-            emf = Persistence.createEntityManagerFactory("EmployeesPU");
+            Properties settings = loadSettings();
+            dataSource = createDataSource(settings, "EmployeesPU",
+                    settings.getProperty("db.url"),
+                    settings.getProperty("db.user"),
+                    settings.getProperty("db.password"),
+                    false);
+            emf = createEntityManagerFactory(dataSource, false);
+            createReaders(settings);
+            createExportFactory(settings);
+            ReadRouter.setWindowMillis(longSetting(settings, "db.reader.readYourWritesMs"));
         }
         return emf;
     }
 
     /**
-     * Creates and returns a new {@link EntityManager} from the singleton factory.
+     * Creates and returns a new {@link EntityManager} on the primary database.
+     *
+     * <p>Use it for transactions that write, and for reads that must see
+     * the latest committed state.</p>
      *
      * @return a new {@code EntityManager} instance; caller is responsible for closing it
      */
@@ -53,13 +154,370 @@ public class JPAUtil {
     }
 
     /**
-     * Closes the underlying {@link EntityManagerFactory}, if open.
+     * Creates a new {@link EntityManager} for a read-only request.
+     *
+     * <p>Returns an EntityManager on the next read replica, or on the primary
+     * if there are no replicas or if {@link ReadRouter} finds that the client
+     * or the employee was written to within the read-your-writes window.</p>
+     *
+     * <p>A replica EntityManager uses {@link CacheMode#GET}: it is served
+     * from the shared second-level cache but only the primary fills it.</p>
+     *
+     * @param clientId the {@value ReadRouter#CLIENT_ID_HEADER} of the request;
+     *                 may be {@code null}
+     * @param empNo    the employee being read, or {@code null}
+     * @return a new {@code EntityManager} instance; caller is responsible for closing it
+     */
+    public static EntityManager getReadEntityManager(String clientId, Integer empNo) {
+        EntityManagerFactory primary = getEntityManagerFactory();
+        List<EntityManagerFactory> replicas = readers;
+        if (replicas.isEmpty() || ReadRouter.mustReadFromPrimary(clientId, empNo)) {
+            return primary.createEntityManager();
+        }
+        int index = Math.floorMod(nextReader.getAndIncrement(), replicas.size());
+        EntityManager em = replicas.get(index).createEntityManager();
+        // The replicas share the primary's cache regions. A replica may lag
+        // behind an eviction made by a promotion, so it reads the cache but
+        // never puts what it loaded there.
+        em.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        return em;
+    }
+
+    /**
+     * Creates a new {@link EntityManager} for a streaming export, which may
+     * hold its connection for minutes.
+     *
+     * <p>Reads from the first read replica, or from the primary if there
+     * are none. The EntityManager uses {@link CacheMode#IGNORE}: an export
+     * walks a whole department once and has no use for the second-level
+     * cache.</p>
+     *
+     * @return a new {@code EntityManager} instance; caller is responsible for closing it
+     */
+    public static EntityManager getExportEntityManager() {
+        getEntityManagerFactory();
+        EntityManager em = exportFactory.createEntityManager();
+        em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        return em;
+    }
+
+    /**
+     * Returns the configured maximum number of pooled connections of the
+     * primary pool, the only one writes use.
+     *
+     * @return the maximum number of primary connections
+     */
+    public static synchronized int getPrimaryPoolSize() {
+        getEntityManagerFactory();
+        return dataSource.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the configured maximum number of pooled connections, summed
+     * over the primary and replica pools.
+     *
+     * @return the maximum number of connections the application can hold
+     */
+    public static synchronized int getMaximumPoolSize() {
+        getEntityManagerFactory();
+        int total = dataSource.getMaximumPoolSize();
+        for (HikariDataSource reader : readerDataSources) {
+            total += reader.getMaximumPoolSize();
+        }
+        return total;
+    }
+
+    /**
+     * Returns a snapshot of the primary connection pool: current gauges plus
+     * the connection wait-time distribution (of all pools) since startup.
+     *
+     * @return the pool statistics
+     */
+    public static PoolStatsDTO getPoolStats() {
+        getEntityManagerFactory();
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        Histogram acquire = poolMetrics.getAcquireNanos();
+
+        PoolStatsDTO stats = new PoolStatsDTO();
+        stats.setPoolName(dataSource.getPoolName());
+        stats.setActive(pool.getActiveConnections());
+        stats.setIdle(pool.getIdleConnections());
+        stats.setTotal(pool.getTotalConnections());
+        stats.setWaiting(pool.getThreadsAwaitingConnection());
+        stats.setMinimumIdle(dataSource.getMinimumIdle());
+        stats.setMaximumPoolSize(dataSource.getMaximumPoolSize());
+        stats.setAcquireCount(acquire.getCount());
+        stats.setAcquireTimeouts(poolMetrics.getTimeoutCount());
+        stats.setAcquireP50Millis(nanosToMillis(acquire.percentile(0.50)));
+        stats.setAcquireP95Millis(nanosToMillis(acquire.percentile(0.95)));
+        stats.setAcquireP99Millis(nanosToMillis(acquire.percentile(0.99)));
+
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        long[] bounds = acquire.getUpperBounds();
+        long[] counts = acquire.getBucketCounts();
+        for (int i = 0; i < counts.length; i++) {
+            buckets.put(i < bounds.length ? String.valueOf(nanosToMillis(bounds[i])) : "+Inf",
+                    counts[i]);
+        }
+        stats.setAcquireHistogramMillis(buckets);
+        return stats;
+    }
+
+    /**
+     * Returns Hibernate's runtime statistics (statements, entity loads,
+     * second-level and query cache activity) for the primary factory.
+     *
+     * @return the Hibernate {@link Statistics}
+     */
+    public static Statistics getStatistics() {
+        return getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Returns Hibernate's runtime statistics for every factory, keyed
+     * {@code primary}, {@code replica-1}, {@code replica-2}, ...
+     *
+     * @return the statistics of each factory, primary first
+     */
+    public static Map<String, Statistics> getStatisticsByDatabase() {
+        Map<String, Statistics> statistics = new LinkedHashMap<>();
+        statistics.put("primary", getStatistics());
+        List<EntityManagerFactory> replicas = readers;
+        for (int i = 0; i < replicas.size(); i++) {
+            statistics.put("replica-" + (i + 1),
+                    replicas.get(i).unwrap(SessionFactory.class).getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the wait-time metrics recorded by the connection pool.
+     *
+     * @return the pool metrics tracker
+     */
+    public static PoolMetricsTracker getPoolMetrics() {
+        return poolMetrics;
+    }
+
+    /**
+     * Closes the underlying {@link EntityManagerFactory} instances and
+     * connection pools, if open.
      *
      * <p>For graceful shutdown in real applications.</p>
      */
-    public static void close() {
+    public static synchronized void close() {
+        for (EntityManagerFactory reader : readers) {
+            if (reader.isOpen()) {
+                reader.close();
+            }
+        }
+        for (HikariDataSource reader : readerDataSources) {
+            reader.close();
+        }
         if (emf != null && emf.isOpen()) {
             emf.close();
         }
+        if (dataSource != null && !dataSource.isClosed()) {
+            dataSource.close();
+        }
+        if (exportFactory != null && exportFactory.isOpen()) {
+            exportFactory.close();
+        }
+        if (exportDataSource != null && !exportDataSource.isClosed()) {
+            exportDataSource.close();
+        }
+        readers = List.of();
+        readerDataSources = List.of();
+        exportFactory = null;
+        exportDataSource = null;
+        emf = null;
+        dataSource = null;
+    }
+
+    /**
+     * Creates one reader factory per URL in {@code db.reader.urls}.
+     *
+     * <p>Replicas use {@code db.reader.user} and {@code db.reader.password}
+     * when set, and the primary's credentials otherwise. Their pools are
+     * sized like the primary's and hand out read-only connections.</p>
+     *
+     * @param settings the merged connection and pool settings
+     */
+    private static void createReaders(Properties settings) {
+        String user = settings.getProperty("db.reader.user", "");
+        String password = settings.getProperty("db.reader.password", "");
+        if (user.isBlank()) {
+            user = settings.getProperty("db.user");
+            password = settings.getProperty("db.password");
+        }
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        List<EntityManagerFactory> factories = new ArrayList<>();
+        for (String url : settings.getProperty("db.reader.urls", "").split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource pool = createDataSource(settings,
+                    "EmployeesPU-replica-" + (pools.size() + 1), url.trim(),
+                    user, password, true);
+            pools.add(pool);
+            factories.add(createEntityManagerFactory(pool, true));
+        }
+        readerDataSources = List.copyOf(pools);
+        readers = List.copyOf(factories);
+    }
+
+    /**
+     * Creates the factory for streaming exports, over the first read replica
+     * or, without replicas, over the primary.
+     *
+     * <p>Its pool holds at most {@code db.export.maximumPoolSize}
+     * connections, keeps none idle, and has leak detection turned off, since
+     * an export legitimately holds its connection until the client has read
+     * the whole stream.</p>
+     *
+     * @param settings the merged connection and pool settings
+     */
+    private static void createExportFactory(Properties settings) {
+        String url = settings.getProperty("db.url");
+        String user = settings.getProperty("db.user");
+        String password = settings.getProperty("db.password");
+        for (String readerUrl : settings.getProperty("db.reader.urls", "").split(",")) {
+            if (!readerUrl.isBlank()) {
+                url = readerUrl.trim();
+                if (!settings.getProperty("db.reader.user", "").isBlank()) {
+                    user = settings.getProperty("db.reader.user");
+                    password = settings.getProperty("db.reader.password");
+                }
+                break;
+            }
+        }
+
+        HikariConfig config = createConfig(settings, "EmployeesPU-export", url,
+                user, password, true);
+        config.setMaximumPoolSize(intSetting(settings, "db.export.maximumPoolSize"));
+        config.setMinimumIdle(0);
+        config.setLeakDetectionThreshold(0);
+        exportDataSource = new HikariDataSource(config);
+        exportFactory = createEntityManagerFactory(exportDataSource, true);
+    }
+
+    /**
+     * Creates an {@link EntityManagerFactory} for the {@code EmployeesPU}
+     * unit over the given pool.
+     *
+     * @param pool   the connection pool to use
+     * @param reader {@code true} for a replica, which must never run schema
+     *               updates
+     * @return the new factory
+     */
+    private static EntityManagerFactory createEntityManagerFactory(HikariDataSource pool,
+                                                                   boolean reader) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.nonJtaDataSource", pool);
+        // -Dhibernate.* system properties override persistence.xml
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("hibernate.")) {
+                overrides.put(key, System.getProperty(key));
+            }
+        }
+        if (reader) {
+            overrides.put("hibernate.hbm2ddl.auto", "none");
+        }
+        return Persistence.createEntityManagerFactory("EmployeesPU", overrides);
+    }
+
+    /**
+     * Builds a HikariCP pool from the connection settings.
+     *
+     * @param settings the merged connection and pool settings
+     * @param poolName the pool name shown in logs and metrics
+     * @param url      the JDBC URL of the database
+     * @param user     the database user
+     * @param password the database password
+     * @param readOnly whether connections are handed out read-only
+     * @return a started connection pool
+     */
+    private static HikariDataSource createDataSource(Properties settings, String poolName,
+                                                     String url, String user,
+                                                     String password, boolean readOnly) {
+        return new HikariDataSource(createConfig(settings, poolName, url, user, password,
+                readOnly));
+    }
+
+    /**
+     * Builds the HikariCP configuration of a pool from the connection
+     * settings, for callers that adjust it before starting the pool.
+     *
+     * @param settings the merged connection and pool settings
+     * @param poolName the pool name shown in logs and metrics
+     * @param url      the JDBC URL of the database
+     * @param user     the database user
+     * @param password the database password
+     * @param readOnly whether connections are handed out read-only
+     * @return the pool configuration
+     */
+    private static HikariConfig createConfig(Properties settings, String poolName,
+                                             String url, String user,
+                                             String password, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(settings.getProperty("db.driver"));
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setReadOnly(readOnly);
+
+        config.setMinimumIdle(intSetting(settings, "db.pool.minimumIdle"));
+        config.setMaximumPoolSize(intSetting(settings, "db.pool.maximumPoolSize"));
+        config.setConnectionTimeout(longSetting(settings, "db.pool.connectionTimeoutMs"));
+        config.setValidationTimeout(longSetting(settings, "db.pool.validationTimeoutMs"));
+        config.setLeakDetectionThreshold(longSetting(settings, "db.pool.leakDetectionThresholdMs"));
+        config.setIdleTimeout(longSetting(settings, "db.pool.idleTimeoutMs"));
+        config.setMaxLifetime(longSetting(settings, "db.pool.maxLifetimeMs"));
+
+        // Optional: validate with a query instead of JDBC4 Connection.isValid()
+        String testQuery = settings.getProperty("db.pool.connectionTestQuery");
+        if (testQuery != null && !testQuery.isBlank()) {
+            config.setConnectionTestQuery(testQuery);
+        }
+
+        config.setMetricsTrackerFactory(poolMetrics);
+        return config;
+    }
+
+    /**
+     * Loads {@code db.properties} and applies system property overrides.
+     *
+     * @return the merged settings
+     */
+    private static Properties loadSettings() {
+        Properties settings = new Properties();
+        try (InputStream in = JPAUtil.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            if (in != null) {
+                settings.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + SETTINGS_RESOURCE, e);
+        }
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("db.")) {
+                settings.setProperty(key, System.getProperty(key));
+            }
+        }
+        return settings;
+    }
+
+    private static int intSetting(Properties settings, String key) {
+        return Integer.parseInt(settings.getProperty(key).trim());
+    }
+
+    private static long longSetting(Properties settings, String key) {
+        return Long.parseLong(settings.getProperty(key).trim());
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : nanos / 1_000_000.0;
     }
 }
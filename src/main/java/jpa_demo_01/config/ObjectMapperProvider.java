@@ -0,0 +1,145 @@
+package jpa_demo_01.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Provider;
+import jpa_demo_01.dto.CacheRegionStatsDTO;
+import jpa_demo_01.dto.EmployeeBatchDTO;
+import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.dto.EmployeePageDTO;
+import jpa_demo_01.dto.EmployeeView;
+import jpa_demo_01.dto.PoolStatsDTO;
+import jpa_demo_01.dto.PromotionResultDTO;
+import jpa_demo_01.dto.PromotionStatusDTO;
+import jpa_demo_01.entity.Department;
+import jpa_demo_01.entity.DeptEmp;
+import jpa_demo_01.entity.DeptManager;
+import jpa_demo_01.entity.Employee;
+import jpa_demo_01.entity.Salaries;
+import jpa_demo_01.entity.Titles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Supplies the {@link ObjectMapper} Jersey uses for JSON entities.
+ *
+ * <p>A single mapper is shared by all requests. It is configured with:</p>
+ * <ul>
+ *     <li>{@link JavaTimeModule} for the {@code LocalDate} fields, written as
+ *         ISO strings rather than timestamps.</li>
+ *     <li>{@link Hibernate6Module}, so history collections that were not
+ *         fetched by the chosen fetch profile are written as {@code null}
+ *         instead of triggering a lazy load after the
+ *         {@link jakarta.persistence.EntityManager} has been closed.</li>
+ *     <li>{@link BlackbirdModule}, which replaces reflective getter calls
+ *         with accessors generated through {@code LambdaMetafactory}.</li>
+ *     <li>{@link IsoLocalDateSerializer} for {@code LocalDate}, which reuses
+ *         preformatted {@code yyyy-MM-dd} strings instead of running a
+ *         {@code DateTimeFormatter} for every date.</li>
+ *     <li>{@link EmployeeFieldsFilter}, which drops the employee properties
+ *         a client did not select, see {@link EmployeeView}.</li>
+ * </ul>
+ *
+ * <p>Serializers for the entities and DTOs the resources return are
+ * resolved when the mapper is created, so the first requests do not pay for
+ * introspecting them.</p>
+ *
+ * <p>CBOR and Smile mappers with the same configuration back
+ * {@link BinaryJacksonProvider}.</p>
+ */
+@Provider
+public class ObjectMapperProvider implements ContextResolver<ObjectMapper> {
+
+    /**
+     * Shared, thread-safe mapper instance.
+     */
+    private static final ObjectMapper MAPPER = configure(new ObjectMapper());
+
+    private static final ObjectMapper CBOR_MAPPER = configure(new CBORMapper());
+
+    private static final ObjectMapper SMILE_MAPPER = configure(new SmileMapper());
+
+    /**
+     * Types written by the resources, resolved up front.
+     */
+    private static final List<Class<?>> RESPONSE_TYPES = List.of(
+            Employee.class, Department.class, DeptEmp.class, DeptManager.class,
+            Salaries.class, Titles.class, EmployeeInfoDTO.class, EmployeePageDTO.class,
+            EmployeeView.class, EmployeeBatchDTO.class, PromotionResultDTO.class,
+            PromotionStatusDTO.class, CacheRegionStatsDTO.class, PoolStatsDTO.class);
+
+    static {
+        for (Class<?> type : RESPONSE_TYPES) {
+            // creating the writer resolves and caches the type's serializer
+            MAPPER.writerFor(type);
+            CBOR_MAPPER.writerFor(type);
+            SMILE_MAPPER.writerFor(type);
+        }
+    }
+
+    /**
+     * Returns the shared mapper for any type.
+     *
+     * @param type the class of the object being (de)serialized
+     * @return the shared {@link ObjectMapper}
+     */
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the shared mapper for code that writes JSON outside of Jersey's
+     * entity providers.
+     *
+     * @return the shared {@link ObjectMapper}
+     */
+    public static ObjectMapper getMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Returns the shared CBOR mapper.
+     *
+     * @return the CBOR {@link ObjectMapper}
+     */
+    public static ObjectMapper getCborMapper() {
+        return CBOR_MAPPER;
+    }
+
+    /**
+     * Returns the shared Smile mapper.
+     *
+     * @return the Smile {@link ObjectMapper}
+     */
+    public static ObjectMapper getSmileMapper() {
+        return SMILE_MAPPER;
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new Hibernate6Module());
+        mapper.registerModule(new BlackbirdModule());
+        // registered last, so it takes precedence over JavaTimeModule's serializer
+        mapper.registerModule(new SimpleModule("IsoLocalDate")
+                .addSerializer(LocalDate.class, new IsoLocalDateSerializer()));
+        mapper.setFilterProvider(new SimpleFilterProvider()
+                .addFilter(Employee.FIELDS_FILTER, new EmployeeFieldsFilter()));
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // Jersey owns the entity streams
+        mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        mapper.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return mapper;
+    }
+}
@@ -0,0 +1,104 @@
+package jpa_demo_01.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a read must go to the primary database instead of a replica
+ * ("read-your-writes").
+ *
+ * <p>Replicas apply the primary's changes with some delay, so right after a
+ * promotion a replica may still return the old title and salary. For a short
+ * window after each write ({@code db.reader.readYourWritesMs}, see
+ * {@code db.properties}), reads are therefore sent to the primary if
+ * either</p>
+ * <ul>
+ *     <li>they come from the same client, identified by the
+ *         {@value #CLIENT_ID_HEADER} request header, or</li>
+ *     <li>they are about the employee that was written, whoever asks.</li>
+ * </ul>
+ *
+ * <p>State is kept in memory per application instance. All methods are
+ * thread-safe.</p>
+ */
+public final class ReadRouter {
+
+    /**
+     * Request header identifying a client across requests.
+     */
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    /**
+     * Tracked clients or employees beyond which expired entries are purged.
+     */
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    /**
+     * Deadline (System.nanoTime) until which each client reads from the primary.
+     */
+    private static final Map<String, Long> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * Deadline (System.nanoTime) until which each employee is read from the primary.
+     */
+    private static final Map<Integer, Long> EMPLOYEES = new ConcurrentHashMap<>();
+
+    private static volatile long windowNanos = TimeUnit.SECONDS.toNanos(5);
+
+    private ReadRouter() {}
+
+    /**
+     * Sets how long reads stick to the primary after a write.
+     *
+     * @param windowMillis the window in milliseconds; {@code 0} disables it
+     */
+    static void setWindowMillis(long windowMillis) {
+        windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * Records a committed write, so that the client and the employee read
+     * from the primary for the next window.
+     *
+     * @param clientId the client that made the write; may be {@code null}
+     * @param empNo    the employee that was written
+     */
+    public static void recordWrite(String clientId, int empNo) {
+        if (windowNanos == 0) {
+            return;
+        }
+        long until = System.nanoTime() + windowNanos;
+        if (clientId != null && !clientId.isBlank()) {
+            CLIENTS.put(clientId, until);
+            purgeIfLarge(CLIENTS);
+        }
+        EMPLOYEES.put(empNo, until);
+        purgeIfLarge(EMPLOYEES);
+    }
+
+    /**
+     * Tells whether a read must see the primary's latest state.
+     *
+     * @param clientId the client making the read; may be {@code null}
+     * @param empNo    the employee being read, or {@code null} if the read is
+     *                 not about a single employee
+     * @return {@code true} if the read should go to the primary
+     */
+    public static boolean mustReadFromPrimary(String clientId, Integer empNo) {
+        long now = System.nanoTime();
+        return (clientId != null && isWithin(CLIENTS.get(clientId), now))
+                || (empNo != null && isWithin(EMPLOYEES.get(empNo), now));
+    }
+
+    private static boolean isWithin(Long until, long now) {
+        return until != null && until - now > 0;
+    }
+
+    private static <K> void purgeIfLarge(Map<K, Long> deadlines) {
+        if (deadlines.size() > PURGE_THRESHOLD) {
+            long now = System.nanoTime();
+            deadlines.values().removeIf(until -> until - now <= 0);
+        }
+    }
+}
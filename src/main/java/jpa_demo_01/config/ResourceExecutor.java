@@ -0,0 +1,298 @@
+package jpa_demo_01.config;
+
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking (JPA/JDBC) part of resource methods off the servlet
+ * container thread.
+ *
+ * <p>Resource methods take a {@code @Suspended AsyncResponse} and hand their
+ * work to {@link #submit(AsyncResponse, Supplier)}. The work runs on a
+ * virtual thread, so a slow query parks a cheap virtual thread instead of
+ * holding a Tomcat worker. At most as many tasks as the connection pools
+ * have connections run at once ({@link JPAUtil#getMaximumPoolSize()}), and
+ * of those at most as many updates as the primary pool has connections
+ * ({@link JPAUtil#getPrimaryPoolSize()}), since updates never use a
+ * replica. The rest wait for a permit rather than queueing inside the
+ * pool.</p>
+ *
+ * <p>Every request has a deadline. If the response has not been resumed by
+ * then, the client gets HTTP 503 (Service Unavailable) with a
+ * {@code Retry-After} header, and work that has not started yet is
+ * skipped. Read work that is still running is interrupted, so that it
+ * gives back its permit and connection instead of finishing for nobody.
+ * Work submitted with {@link #submitUpdate(AsyncResponse, Supplier)} is
+ * never cut off once it has started.</p>
+ *
+ * <p>A {@link StreamingOutput} entity is written after the work has
+ * returned; wrap it with {@link #withPermit(StreamingOutput)} if it uses
+ * the database.</p>
+ *
+ * <p>Configured with JVM system properties:</p>
+ * <ul>
+ *     <li>{@code api.async.enabled} — {@code true} (default) to run work on
+ *         virtual threads, {@code false} to run it inline on the container
+ *         thread as before.</li>
+ *     <li>{@code api.async.timeoutMs} — per-request deadline in milliseconds
+ *         (default {@value #DEFAULT_TIMEOUT_MS}).</li>
+ * </ul>
+ */
+public final class ResourceExecutor {
+
+    private static final long DEFAULT_TIMEOUT_MS = 10_000;
+
+    /**
+     * Seconds suggested to the client in {@code Retry-After} after a timeout.
+     */
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int TIMED_OUT = 2;
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("api.async.enabled", "true"));
+
+    private static final long TIMEOUT_MS =
+            Long.getLong("api.async.timeoutMs", DEFAULT_TIMEOUT_MS);
+
+    private static ExecutorService executor;
+
+    /**
+     * Bounds concurrent tasks to the connection pool size.
+     */
+    private static Semaphore permits;
+
+    /**
+     * Bounds concurrent update tasks to the primary pool size. Update work
+     * holds one of these as well as one of {@link #permits}.
+     */
+    private static Semaphore updatePermits;
+
+    /**
+     * Set while the current thread holds a permit, so that a streaming body
+     * written from within the work does not wait for a second one.
+     */
+    private static final ThreadLocal<Boolean> HOLDS_PERMIT = new ThreadLocal<>();
+
+    private ResourceExecutor() {}
+
+    /**
+     * Runs read-only {@code work} and resumes {@code response} with its result.
+     *
+     * <p>The deadline covers both the wait for a permit and the work itself.
+     * An exception thrown by {@code work} resumes the response with that
+     * exception, so it is mapped exactly as if the resource method had
+     * thrown it.</p>
+     *
+     * @param response the suspended response of the current request
+     * @param work     the blocking part of the resource method
+     */
+    public static void submit(AsyncResponse response, Supplier<Response> work) {
+        submit(response, work, true);
+    }
+
+    /**
+     * Runs {@code work} that modifies data and resumes {@code response} with
+     * its result.
+     *
+     * <p>Besides a permit, the work waits for one of the update permits,
+     * which are as many as the primary pool has connections. The deadline
+     * only covers the wait for the permits: once the work has started it
+     * runs to completion, so a 503 always means nothing was written and the
+     * request can safely be retried.</p>
+     *
+     * @param response the suspended response of the current request
+     * @param work     the blocking part of the resource method
+     */
+    public static void submitUpdate(AsyncResponse response, Supplier<Response> work) {
+        submit(response, work, false);
+    }
+
+    /**
+     * Wraps a streaming response body so that it is written while holding a
+     * permit, like the work of {@link #submit(AsyncResponse, Supplier)}.
+     *
+     * <p>The body is written after the work has returned its response, by
+     * which time the work's permit may have been released, so a body that
+     * reads from the database takes a permit of its own. It waits for one
+     * up to the request deadline, then fails with HTTP 503. Written on a
+     * thread that already holds a permit, the body uses that one.</p>
+     *
+     * @param body the streaming body
+     * @return a body that writes {@code body} under a permit
+     */
+    public static StreamingOutput withPermit(StreamingOutput body) {
+        if (!ENABLED) {
+            return body;
+        }
+        return output -> {
+            if (HOLDS_PERMIT.get() != null) {
+                body.write(output);
+                return;
+            }
+            Semaphore limit = getPermits();
+            try {
+                if (!limit.tryAcquire(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    throw new ServiceUnavailableException(
+                            "Request timed out after " + TIMEOUT_MS + " ms",
+                            (long) RETRY_AFTER_SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a permit");
+            }
+            HOLDS_PERMIT.set(Boolean.TRUE);
+            try {
+                body.write(output);
+            } finally {
+                HOLDS_PERMIT.remove();
+                limit.release();
+            }
+        };
+    }
+
+    private static void submit(AsyncResponse response, Supplier<Response> work,
+                               boolean timeOutWhileRunning) {
+        // QUEUED -> RUNNING when the work starts, QUEUED -> TIMED_OUT when the
+        // deadline passes first; whichever happens first wins
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        // the thread running read work, to interrupt it on timeout
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        response.setTimeoutHandler(suspended -> {
+            if (state.compareAndSet(QUEUED, TIMED_OUT)) {
+                timeOut(suspended);
+            } else if (timeOutWhileRunning) {
+                timeOut(suspended);
+                Thread thread = runner.getAndSet(null);
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            } else {
+                suspended.setTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+        response.setTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        if (!ENABLED) {
+            if (state.compareAndSet(QUEUED, RUNNING)) {
+                run(response, work);
+            }
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        Semaphore limit = getPermits();
+        Semaphore updateLimit = timeOutWhileRunning ? null : getUpdatePermits();
+        getExecutor().execute(() -> {
+            boolean updateAcquired = false;
+            boolean acquired = false;
+            try {
+                // the update permit first, so that updates waiting for the
+                // primary do not hold permits reads could use
+                updateAcquired = updateLimit == null || updateLimit.tryAcquire(
+                        deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                acquired = updateAcquired && limit.tryAcquire(deadline - System.nanoTime(),
+                        TimeUnit.NANOSECONDS);
+                if (acquired && state.compareAndSet(QUEUED, RUNNING)) {
+                    if (timeOutWhileRunning) {
+                        runner.set(Thread.currentThread());
+                    }
+                    HOLDS_PERMIT.set(Boolean.TRUE);
+                    try {
+                        run(response, work);
+                    } finally {
+                        HOLDS_PERMIT.remove();
+                        runner.set(null);
+                    }
+                } else if (state.compareAndSet(QUEUED, TIMED_OUT)) {
+                    timeOut(response);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.resume(e);
+            } finally {
+                if (acquired) {
+                    limit.release();
+                }
+                if (updateAcquired && updateLimit != null) {
+                    updateLimit.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops accepting work and waits briefly for running tasks to finish.
+     *
+     * <p>Called at shutdown, before the connection pool is closed.</p>
+     */
+    public static synchronized void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        permits = null;
+        updatePermits = null;
+    }
+
+    private static void run(AsyncResponse response, Supplier<Response> work) {
+        try {
+            response.resume(work.get());
+        } catch (RuntimeException e) {
+            response.resume(e);
+        }
+    }
+
+    private static void timeOut(AsyncResponse response) {
+        response.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .header("Retry-After", RETRY_AFTER_SECONDS)
+                .entity("Request timed out after " + TIMEOUT_MS + " ms")
+                .build());
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("api-", 0).factory());
+        }
+        return executor;
+    }
+
+    private static synchronized Semaphore getPermits() {
+        if (permits == null) {
+            permits = new Semaphore(JPAUtil.getMaximumPoolSize());
+        }
+        return permits;
+    }
+
+    private static synchronized Semaphore getUpdatePermits() {
+        if (updatePermits == null) {
+            updatePermits = new Semaphore(JPAUtil.getPrimaryPoolSize());
+        }
+        return updatePermits;
+    }
+}
@@ -0,0 +1,139 @@
+package jpa_demo_01.config;
+
+import jakarta.persistence.EntityManager;
+import jpa_demo_01.cache.CurrentTitleIndex;
+import jpa_demo_01.cache.DepartmentHeadcountCache;
+import jpa_demo_01.cache.EmployeeNameIndex;
+import jpa_demo_01.dao.DepartmentDAO;
+import jpa_demo_01.dao.EmployeeDAO;
+import jpa_demo_01.queue.PromotionQueue;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+/**
+ * Jersey application lifecycle listener.
+ *
+ * <p>Registered in {@link ApplicationConfig}; Jersey calls it once the
+ * application has been initialised and again when it is being destroyed.</p>
+ *
+ * <p>Responsibilities:</p>
+ * <ul>
+ *     <li>Warms in-process caches such as {@link DepartmentHeadcountCache}
+ *         and builds the {@link EmployeeNameIndex} and
+ *         {@link CurrentTitleIndex} at startup.</li>
+ *     <li>Starts the {@link PromotionQueue}, replaying promotions left in
+ *         its journal, at startup, and stops it at shutdown.</li>
+ *     <li>Drains {@link ResourceExecutor} and then closes the
+ *         {@link jakarta.persistence.EntityManagerFactory} via
+ *         {@link JPAUtil#close()} at shutdown.</li>
+ * </ul>
+ */
+public class StartupListener implements ApplicationEventListener {
+
+    /**
+     * Handles application-level lifecycle events.
+     *
+     * @param event the application event raised by Jersey
+     */
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        switch (event.getType()) {
+            case INITIALIZATION_FINISHED -> {
+                warmCaches();
+                buildNameIndex();
+                buildTitleIndex();
+                startPromotionQueue();
+            }
+            case DESTROY_FINISHED -> {
+                PromotionQueue.shutdown();
+                ResourceExecutor.shutdown();
+                JPAUtil.close();
+            }
+            default -> {
+                // not interested in other lifecycle events
+            }
+        }
+    }
+
+    /**
+     * Request-level events are not observed.
+     *
+     * @param requestEvent the request event
+     * @return always {@code null}
+     */
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return null;
+    }
+
+    /**
+     * Populates the per-department headcount cache.
+     *
+     * <p>A failure here is not fatal: the cache is filled lazily by the
+     * department DAO on first use instead.</p>
+     */
+    private void warmCaches() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            DepartmentDAO departmentDAO = new DepartmentDAO(em);
+            DepartmentHeadcountCache.putAll(departmentDAO.countEmployeesPerDept());
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Builds the employee name index from every employee.
+     *
+     * <p>A failure here is not fatal: name searches are refused with
+     * HTTP 503 until the application is restarted.</p>
+     */
+    private void buildNameIndex() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            EmployeeNameIndex.rebuild(new EmployeeDAO(em).findAllNames());
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Builds the index of current titles and departments.
+     *
+     * <p>A failure here is not fatal: title queries are refused with
+     * HTTP 503 until the application is restarted.</p>
+     */
+    private void buildTitleIndex() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            CurrentTitleIndex.rebuild(builder -> {
+                new EmployeeDAO(em).forEachCurrentTitle(builder::addTitle);
+                new DepartmentDAO(em).forEachCurrentMember(builder::addDepartment);
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Starts the asynchronous promotion queue.
+     *
+     * <p>A failure here is not fatal: asynchronous promotions are refused
+     * with HTTP 503, and the journal is replayed on the next start.</p>
+     */
+    private void startPromotionQueue() {
+        try {
+            PromotionQueue.start();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package jpa_demo_01.config;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+
+/**
+ * Supplies the version of the resource a request addresses, for the entity
+ * tags of {@link Versioned} resource methods.
+ *
+ * <p>A version is a token that changes whenever the representation of the
+ * resource may change, e.g. {@code "e10001.3"} for version 3 of employee
+ * 10001. It must be the same on every instance serving the same data.</p>
+ *
+ * <p>Implementations must be thread-safe; one instance serves all
+ * requests.</p>
+ */
+public interface VersionSource {
+
+    /**
+     * Returns the current version of the addressed resource, to answer a
+     * conditional request before the resource method runs.
+     *
+     * <p>Called on the container thread, outside the
+     * {@link ResourceExecutor} limits, and only for requests carrying
+     * {@code If-None-Match}. It must therefore not wait on the database:
+     * answer from memory (a constant, a cache hit) or return {@code null}.</p>
+     *
+     * @param request the request being filtered; path parameters are resolved
+     * @return the version token, or {@code null} if it is not known without
+     *         loading the resource, in which case the request is served in
+     *         full
+     */
+    String currentVersion(ContainerRequestContext request);
+
+    /**
+     * Returns the version of the representation a resource method produced,
+     * for the {@code ETag} of the response.
+     *
+     * @param request the request being answered
+     * @param entity  the entity of the HTTP 200 response
+     * @return the version token, or {@code null} to send no {@code ETag}
+     */
+    String versionOf(ContainerRequestContext request, Object entity);
+}
@@ -0,0 +1,24 @@
+package jpa_demo_01.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code GET} resource method whose responses carry an
+ * {@code ETag} and honour {@code If-None-Match}, see
+ * {@link ConditionalGetFilter}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Versioned {
+
+    /**
+     * The source of the current version of the resource. It must have a
+     * public no-argument constructor; one instance is shared by all requests.
+     *
+     * @return the version source class
+     */
+    Class<? extends VersionSource> value();
+}
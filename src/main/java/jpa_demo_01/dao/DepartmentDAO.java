@@ -2,16 +2,32 @@ package jpa_demo_01.dao;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import jpa_demo_01.cache.DepartmentHeadcountCache;
 import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.dto.EmployeePageDTO;
+import jpa_demo_01.dto.PageCursor;
 import jpa_demo_01.entity.Department;
+import jpa_demo_01.metrics.DaoOperationEvent;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) for {@link Department} entities.
  *
  * <p>Provides methods to fetch all departments and to query employees
  * belonging to a department using a named query.</p>
+ *
+ * <p>Each query method emits a {@link DaoOperationEvent} for Java Flight
+ * Recorder.</p>
  */
 public class DepartmentDAO {
 
@@ -20,6 +36,19 @@ public class DepartmentDAO {
      */
     protected EntityManager em;
 
+    /**
+     * {@code to_date} value marking the current row of a history table.
+     */
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 1, 1);
+
+    /**
+     * Version of the department list as last loaded by {@link #findAll()},
+     * or {@code null} before the first load. Departments are never written
+     * by this application (their cache region is read-only), so it only
+     * changes when the data set is reloaded and the application restarted.
+     */
+    private static volatile String departmentsVersion;
+
     /**
      * Constructs a {@code DepartmentDAO} with the given {@link EntityManager}.
      *
@@ -38,10 +67,47 @@ public class DepartmentDAO {
      * @return a {@link List} of all {@link Department} entities
      */
     public List<Department> findAll() {
-        TypedQuery<Department> query =
-                em.createNamedQuery("Department.findAllDepartments",
-                        Department.class);
-        return query.getResultList();
+        DaoOperationEvent event = DaoOperationEvent.start("DepartmentDAO.findAll");
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            TypedQuery<Department> query =
+                    em.createNamedQuery("Department.findAllDepartments",
+                            Department.class);
+            List<Department> departments = query.getResultList();
+            departmentsVersion = versionOf(departments);
+            rows = departments.size();
+            return departments;
+        } finally {
+            event.finish(rows);
+        }
+    }
+
+    /**
+     * Endpoint 1 helper:
+     * Returns the version of the list returned by {@link #findAll()}.
+     *
+     * @return the version of the department list, or {@code null} if it has
+     *         not been loaded yet
+     */
+    public static String getDepartmentsVersion() {
+        return departmentsVersion;
+    }
+
+    /**
+     * Computes the version of a department list from its contents, so that
+     * every instance serving the same departments reports the same version.
+     *
+     * @param departments the departments, in the order they are returned
+     * @return a token that changes when any department number or name does
+     */
+    public static String versionOf(List<Department> departments) {
+        List<String> contents = new ArrayList<>(departments.size() * 2);
+        for (Department department : departments) {
+            contents.add(department.getDeptNo());
+            contents.add(department.getDeptName());
+        }
+        // List and String hash codes are specified, hence equal on every JVM
+        return Integer.toHexString(contents.hashCode());
     }
 
     /**
@@ -58,17 +124,180 @@ public class DepartmentDAO {
      */
     public List<EmployeeInfoDTO> findEmployeesByDeptNo(String deptNo, int page,
                                                        int pageLimit) {
+        DaoOperationEvent event = DaoOperationEvent
+                .start("DepartmentDAO.findEmployeesByDeptNo").deptNo(deptNo);
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            int firstResult = (page - 1) * pageLimit;
+            TypedQuery<EmployeeInfoDTO> query =
+                    em.createNamedQuery("DeptEmp.findEmployeesByDept",
+                            EmployeeInfoDTO.class);
+
+            query.setParameter("deptNo", deptNo);
+            query.setFirstResult(firstResult);
+            query.setMaxResults(pageLimit);
+            List<EmployeeInfoDTO> employees = query.getResultList();
+            rows = employees.size();
+            return employees;
+        } finally {
+            event.finish(rows);
+        }
+    }
+
+    /**
+     * Retrieves a page of employees for the given department together with
+     * the department total.
+     *
+     * <p>When {@code withTotal} is {@code true} the total comes from
+     * {@link DepartmentHeadcountCache} if it is held there, and otherwise
+     * from {@link #countEmployeesInDept(String)}, after which it is added to
+     * the cache. The page itself is then read with
+     * {@link #findEmployeesByDeptNo(String, int, int)}, which reads the
+     * department's {@code dept_emp} index in employee number order and stops
+     * after the page. The two
+     * are kept as separate statements: carrying the total on every row with
+     * {@code COUNT(*) OVER ()} makes the database read and number the whole
+     * department before it can return the first row. Pages past the end are
+     * answered from the total without reading any rows.</p>
+     *
+     * <p>When {@code withTotal} is {@code false} no total is computed at all;
+     * one extra row is fetched instead so the next-page cursor can still be
+     * filled in.</p>
+     *
+     * @param deptNo    the department number (e.g. {@code "d001"})
+     * @param page      the page number to retrieve (1-based)
+     * @param pageLimit the maximum number of records per page
+     * @param withTotal whether to compute {@code total} and {@code maxPage}
+     * @return an {@link EmployeePageDTO} holding the page items, the cursor for
+     *         the next page and, if requested, the total and max page
+     */
+    public EmployeePageDTO findEmployeePageByDeptNo(String deptNo, int page,
+                                                    int pageLimit,
+                                                    boolean withTotal) {
+        DaoOperationEvent event = DaoOperationEvent
+                .start("DepartmentDAO.findEmployeePageByDeptNo").deptNo(deptNo);
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            EmployeePageDTO pageDTO = loadEmployeePage(deptNo, page, pageLimit, withTotal);
+            rows = pageDTO.getItems().size();
+            return pageDTO;
+        } finally {
+            event.finish(rows);
+        }
+    }
+
+    private EmployeePageDTO loadEmployeePage(String deptNo, int page, int pageLimit,
+                                             boolean withTotal) {
         int firstResult = (page - 1) * pageLimit;
-        TypedQuery<EmployeeInfoDTO> query =
-                em.createNamedQuery("DeptEmp.findEmployeesByDept",
-                        EmployeeInfoDTO.class);
+
+        if (!withTotal) {
+            List<EmployeeInfoDTO> items = em.createNamedQuery(
+                            "DeptEmp.findEmployeesByDept", EmployeeInfoDTO.class)
+                    .setParameter("deptNo", deptNo)
+                    .setFirstResult(firstResult)
+                    .setMaxResults(pageLimit + 1)
+                    .getResultList();
+            String nextCursor = null;
+            if (items.size() > pageLimit) {
+                items = items.subList(0, pageLimit);
+                nextCursor = PageCursor.encode(items.get(pageLimit - 1).getEmpNo());
+            }
+            return new EmployeePageDTO(items, nextCursor);
+        }
+
+        long total;
+        Long cachedTotal = DepartmentHeadcountCache.get(deptNo);
+        if (cachedTotal != null) {
+            total = cachedTotal;
+        } else {
+            total = countEmployeesInDept(deptNo);
+            // only remember departments that exist, so arbitrary deptNo
+            // values from clients cannot grow the cache
+            if (total > 0) {
+                DepartmentHeadcountCache.put(deptNo, total);
+            }
+        }
+
+        List<EmployeeInfoDTO> items = firstResult < total
+                ? findEmployeesByDeptNo(deptNo, page, pageLimit)
+                : List.of();
+
+        String nextCursor = null;
+        if (firstResult + items.size() < total && !items.isEmpty()) {
+            nextCursor = PageCursor.encode(items.get(items.size() - 1).getEmpNo());
+        }
+
+        EmployeePageDTO pageDTO = new EmployeePageDTO(items, nextCursor);
+        pageDTO.setTotal(total);
+        pageDTO.setMaxPage((long) Math.ceil(total / (double) pageLimit));
+        return pageDTO;
+    }
+
+    /**
+     * Opens a forward-only cursor over every employee of a department.
+     *
+     * <p>This method uses the named query {@code DeptEmp.findEmployeesByDept}
+     * without pagination. Rows are pulled from the database {@code fetchSize}
+     * at a time as the caller advances the cursor, so memory use stays flat
+     * regardless of the department size.</p>
+     *
+     * <p>The caller must close the returned cursor, and must keep this DAO's
+     * {@link EntityManager} open until it has done so.</p>
+     *
+     * @param deptNo    the department number (e.g. {@code "d001"})
+     * @param fetchSize the number of rows fetched per round trip
+     * @return a forward-only {@link ScrollableResults} of {@link EmployeeInfoDTO}
+     *         ordered by employee number
+     */
+    @SuppressWarnings("unchecked")
+    public ScrollableResults<EmployeeInfoDTO> scrollEmployeesByDeptNo(String deptNo,
+                                                                      int fetchSize) {
+        Query<EmployeeInfoDTO> query = em.createNamedQuery(
+                        "DeptEmp.findEmployeesByDept", EmployeeInfoDTO.class)
+                .unwrap(Query.class);
 
         query.setParameter("deptNo", deptNo);
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        return query.scroll(ScrollMode.FORWARD_ONLY);
+    }
 
-            query.setFirstResult(firstResult);
-            query.setMaxResults(pageLimit);
-            return query.getResultList();
+    /**
+     * Retrieves the next slice of employees for the given department using
+     * keyset (seek) pagination.
+     *
+     * <p>This method uses the named query {@code DeptEmp.findEmployeesByDeptAfter},
+     * which seeks on {@code (dept_no, emp_no)} instead of skipping rows with an
+     * offset, so every slice costs the same regardless of how deep into the
+     * department the caller is.</p>
+     *
+     * @param deptNo     the department number (e.g. {@code "d001"})
+     * @param afterEmpNo only employees with an employee number greater than this
+     *                   are returned; use {@code 0} to start from the beginning
+     * @param limit      the maximum number of records to return
+     * @return a list of {@link EmployeeInfoDTO} ordered by employee number;
+     *         may be empty if there are no further records
+     */
+    public List<EmployeeInfoDTO> findEmployeesByDeptNoAfter(String deptNo,
+                                                            int afterEmpNo,
+                                                            int limit) {
+        DaoOperationEvent event = DaoOperationEvent
+                .start("DepartmentDAO.findEmployeesByDeptNoAfter").deptNo(deptNo);
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            TypedQuery<EmployeeInfoDTO> query =
+                    em.createNamedQuery("DeptEmp.findEmployeesByDeptAfter",
+                            EmployeeInfoDTO.class);
 
+            query.setParameter("deptNo", deptNo);
+            query.setParameter("afterEmpNo", afterEmpNo);
+            query.setMaxResults(limit);
+            List<EmployeeInfoDTO> employees = query.getResultList();
+            rows = employees.size();
+            return employees;
+        } finally {
+            event.finish(rows);
+        }
     }
 
     /**
@@ -83,11 +312,79 @@ public class DepartmentDAO {
      * @return the total number of employees in the specified department
      */
     public long countEmployeesInDept(String deptNo) {
-        TypedQuery<Long> query = em.createQuery(
-                "SELECT COUNT(de) FROM DeptEmp de WHERE de.department.deptNo = :deptNo",
-                Long.class
-        );
-        query.setParameter("deptNo", deptNo);
-        return query.getSingleResult();
+        DaoOperationEvent event = DaoOperationEvent
+                .start("DepartmentDAO.countEmployeesInDept").deptNo(deptNo);
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            TypedQuery<Long> query = em.createQuery(
+                    "SELECT COUNT(de) FROM DeptEmp de WHERE de.department.deptNo = :deptNo",
+                    Long.class
+            );
+            query.setParameter("deptNo", deptNo);
+            long count = query.getSingleResult();
+            rows = 1;
+            return count;
+        } finally {
+            event.finish(rows);
+        }
+    }
+
+    /**
+     * Passes the department and employee number of every open
+     * {@code dept_emp} row to {@code action}, to build the
+     * {@link jpa_demo_01.cache.CurrentTitleIndex} at startup.
+     *
+     * <p>Rows are streamed rather than collected into a list.</p>
+     *
+     * @param action receives the department number and employee number of each row
+     */
+    public void forEachCurrentMember(ObjIntConsumer<String> action) {
+        DaoOperationEvent event = DaoOperationEvent.start("DepartmentDAO.forEachCurrentMember");
+        int count = DaoOperationEvent.FAILED;
+        try (Stream<Object[]> rows = em.createQuery(
+                        "SELECT de.employee.empNo, de.department.deptNo FROM DeptEmp de " +
+                                "WHERE de.toDate = :maxDate", Object[].class)
+                .setParameter("maxDate", MAX_DATE)
+                .getResultStream()) {
+            int seen = 0;
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                action.accept((String) row[1], (Integer) row[0]);
+                seen++;
+            }
+            count = seen;
+        } finally {
+            event.finish(count);
+        }
+    }
+
+    /**
+     * Counts the employees of every department in a single grouped query.
+     *
+     * <p>Departments without any {@code dept_emp} rows are included with a
+     * count of zero. Used to populate {@link DepartmentHeadcountCache} at
+     * startup.</p>
+     *
+     * @return headcounts keyed by department number
+     */
+    public Map<String, Long> countEmployeesPerDept() {
+        DaoOperationEvent event = DaoOperationEvent.start("DepartmentDAO.countEmployeesPerDept");
+        int rowCount = DaoOperationEvent.FAILED;
+        try {
+            List<Object[]> rows = em.createQuery(
+                    "SELECT d.deptNo, COUNT(de) FROM Department d " +
+                            "LEFT JOIN DeptEmp de ON de.department = d " +
+                            "GROUP BY d.deptNo",
+                    Object[].class
+            ).getResultList();
+
+            Map<String, Long> counts = new HashMap<>();
+            for (Object[] row : rows) {
+                counts.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            rowCount = rows.size();
+            return counts;
+        } finally {
+            event.finish(rowCount);
+        }
     }
 }
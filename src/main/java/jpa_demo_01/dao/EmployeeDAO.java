@@ -1,10 +1,37 @@
 package jpa_demo_01.dao;
 
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
+import jakarta.persistence.OptimisticLockException;
+import jpa_demo_01.cache.CurrentTitleIndex;
+import jpa_demo_01.cache.EmployeeVersionCache;
+import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.dto.PromotionRequestDTO;
+import jpa_demo_01.dto.PromotionResultDTO;
 import jpa_demo_01.entity.*;
+import jpa_demo_01.metrics.DaoOperationEvent;
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.persister.entity.EntityPersister;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) for {@link Employee} and related history tables
@@ -12,6 +39,17 @@ import java.time.LocalDate;
  *
  * <p>Provides helper methods used by REST resources to look up employees
  * and to apply promotion logic (title and salary history updates).</p>
+ *
+ * <p>Lookups and promotions emit a {@link DaoOperationEvent} for Java
+ * Flight Recorder. Inserts and updates are flushed at commit, so their
+ * statements show up in the caller's {@code TransactionEvent}.</p>
+ *
+ * <p>Promotions are protected by optimistic locking: each one increments
+ * the promoted employee's {@link Employee#getVersion() version}, checking
+ * that it is still the version read at the start of the transaction. When
+ * another transaction promoted the same employee in the meantime, an
+ * {@link OptimisticLockException} is thrown and the caller should roll back
+ * and retry.</p>
  */
 public class EmployeeDAO {
 
@@ -20,6 +58,26 @@ public class EmployeeDAO {
      */
     protected final EntityManager em;
 
+    /**
+     * {@code to_date} value marking the current row of a history table.
+     */
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 1, 1);
+
+    /**
+     * Queries fetching one history collection for many employees, keyed by
+     * collection name. Fetching each collection on its own keeps the result
+     * sets free of the cross product a single multi-collection join yields.
+     */
+    private static final Map<String, String> COLLECTION_QUERIES = Map.of(
+            "deptEmpList", "SELECT e FROM Employee e LEFT JOIN FETCH e.deptEmpList d "
+                    + "LEFT JOIN FETCH d.department WHERE e.empNo IN :empNos",
+            "deptManagerList", "SELECT e FROM Employee e LEFT JOIN FETCH e.deptManagerList d "
+                    + "LEFT JOIN FETCH d.department WHERE e.empNo IN :empNos",
+            "salaries", "SELECT e FROM Employee e LEFT JOIN FETCH e.salaries "
+                    + "WHERE e.empNo IN :empNos",
+            "titles", "SELECT e FROM Employee e LEFT JOIN FETCH e.titles "
+                    + "WHERE e.empNo IN :empNos");
+
     /**
      * Constructs an {@code EmployeeDAO} with the given {@link EntityManager}.
      *
@@ -30,68 +88,423 @@ public class EmployeeDAO {
     }
 
     /**
-     * Endpoint 2 helper:
-     * Finds a single employee by employee number (primary key).
+     * Finds a single employee by employee number (primary key), without any
+     * of its history collections.
      *
      * @param empNo the employee number to search for
      * @return the matching {@link Employee}, or {@code null} if none found
      */
     public Employee findEmployee(int empNo) {
-        return em.find(Employee.class, empNo);
+        return findEmployee(empNo, EmployeeFetchProfile.SUMMARY);
+    }
+
+    /**
+     * Endpoint 2 helper:
+     * Finds a single employee by employee number (primary key), fetching the
+     * history collections selected by {@code profile}.
+     *
+     * <p>The employee is looked up by primary key, from the second-level
+     * cache when it is there, and each collection of the profile is then
+     * fetched with its own query, as {@link #findEmployees} does. Joining
+     * several collections in one statement would return the product of
+     * their sizes in rows; one query each returns their sum.</p>
+     *
+     * @param empNo   the employee number to search for
+     * @param profile the fetch profile deciding which collections are loaded
+     * @return the matching {@link Employee}, or {@code null} if none found
+     */
+    public Employee findEmployee(int empNo, EmployeeFetchProfile profile) {
+        return findEmployee(empNo, profile.getAssociations());
+    }
+
+    /**
+     * Multi-get helper:
+     * Finds many employees by employee number, fetching the history
+     * collections selected by {@code profile}, in a number of statements
+     * that does not depend on how many employees are requested.
+     *
+     * <p>The employees are loaded with one {@code IN}-list lookup, which
+     * takes those already in the second-level cache from there; then each
+     * collection of the profile is fetched for all found employees with one
+     * {@code IN}-list join, for at most five statements in all.</p>
+     *
+     * @param empNos  the employee numbers to search for, without duplicates
+     * @param profile the fetch profile deciding which collections are loaded
+     * @return one element per requested number, in the same order: the
+     *         matching {@link Employee}, or {@code null} if none found
+     */
+    public List<Employee> findEmployees(List<Integer> empNos, EmployeeFetchProfile profile) {
+        DaoOperationEvent event = DaoOperationEvent.start("EmployeeDAO.findEmployees");
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            List<Employee> employees = em.unwrap(Session.class)
+                    .byMultipleIds(Employee.class)
+                    .enableOrderedReturn(true)
+                    .multiLoad(empNos);
+
+            List<Integer> found = new ArrayList<>(empNos.size());
+            for (Employee employee : employees) {
+                if (employee != null) {
+                    found.add(employee.getEmpNo());
+                }
+            }
+            fetchCollections(found, profile.getAssociations());
+            rows = found.size();
+            return employees;
+        } finally {
+            event.finish(rows);
+        }
+    }
+
+    /**
+     * Reads the number, names and hire date of every employee, to build the
+     * {@link jpa_demo_01.cache.EmployeeNameIndex} at startup.
+     *
+     * <p>This method uses the named query {@code Employee.findAllNames}.</p>
+     *
+     * @return one {@link EmployeeInfoDTO} per employee, in no particular order
+     */
+    public List<EmployeeInfoDTO> findAllNames() {
+        DaoOperationEvent event = DaoOperationEvent.start("EmployeeDAO.findAllNames");
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            List<EmployeeInfoDTO> employees = em
+                    .createNamedQuery("Employee.findAllNames", EmployeeInfoDTO.class)
+                    .getResultList();
+            rows = employees.size();
+            return employees;
+        } finally {
+            event.finish(rows);
+        }
+    }
+
+    /**
+     * Passes the employee number and title of every open title row to
+     * {@code action}, to build the {@link CurrentTitleIndex} at startup.
+     *
+     * <p>Rows are streamed rather than collected into a list.</p>
+     *
+     * @param action receives the title and employee number of each row
+     */
+    public void forEachCurrentTitle(ObjIntConsumer<String> action) {
+        DaoOperationEvent event = DaoOperationEvent.start("EmployeeDAO.forEachCurrentTitle");
+        int rowCount = DaoOperationEvent.FAILED;
+        try {
+            int count = 0;
+            try (Stream<Object[]> rows = em.createQuery(
+                            "SELECT t.titleId.empNo, t.titleId.title FROM Titles t " +
+                                    "WHERE t.toDate = :maxDate", Object[].class)
+                    .setParameter("maxDate", MAX_DATE)
+                    .getResultStream()) {
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    action.accept((String) row[1], (Integer) row[0]);
+                    count++;
+                }
+            }
+            rowCount = count;
+        } finally {
+            event.finish(rowCount);
+        }
+    }
+
+    /**
+     * Endpoint 2 helper:
+     * Finds a single employee by employee number (primary key), fetching
+     * exactly the named history collections, one query each.
+     *
+     * <p>Used for sparse fieldset requests, where the collections follow from
+     * the fields the client asked for rather than from a fixed
+     * {@link EmployeeFetchProfile}. With no collections this is a single
+     * primary key lookup.</p>
+     *
+     * @param empNo        the employee number to search for
+     * @param associations names of the collections to fetch, among
+     *                     {@code deptEmpList}, {@code deptManagerList},
+     *                     {@code salaries} and {@code titles}
+     * @return the matching {@link Employee}, or {@code null} if none found
+     */
+    public Employee findEmployee(int empNo, Set<String> associations) {
+        DaoOperationEvent event = DaoOperationEvent
+                .start("EmployeeDAO.findEmployee").empNo(empNo);
+        int rows = DaoOperationEvent.FAILED;
+        try {
+            Employee employee = em.find(Employee.class, empNo);
+            if (employee != null) {
+                fetchCollections(List.of(empNo), associations);
+            }
+            rows = employee == null ? 0 : 1;
+            return employee;
+        } finally {
+            event.finish(rows);
+        }
+    }
+
+    /**
+     * Initializes the named history collections of the given managed
+     * employees, with one {@code IN}-list query per collection.
+     *
+     * @param empNos       the employees, already in the persistence context
+     * @param associations names of the collections to fetch
+     */
+    private void fetchCollections(List<Integer> empNos, Set<String> associations) {
+        if (empNos.isEmpty()) {
+            return;
+        }
+        // The managed employees are returned again, with the collection
+        // initialized
+        for (String association : associations) {
+            em.createQuery(COLLECTION_QUERIES.get(association), Employee.class)
+                    .setParameter("empNos", empNos)
+                    .getResultList();
+        }
     }
 
     /**
      * Endpoint 4 helper:
-     * Performs a promotion for a single employee.
+     * Performs a promotion for a single employee in a fixed, small number of
+     * statements.
      *
-     * <p>Operations performed:</p>
+     * <p>Statements issued:</p>
      * <ul>
-     *     <li>Locate the current title row with {@code to_date = 9999-01-01} and
-     *         close it by setting {@code to_date = effectiveFrom - 1 day}, if it exists.</li>
-     *     <li>Insert a new title row effective from {@code effectiveFrom}.</li>
-     *     <li>If {@code newSalary} is not {@code null}:
-     *         <ul>
-     *             <li>Locate the current salary row with {@code to_date = 9999-01-01} and
-     *                 close it by setting {@code to_date = effectiveFrom - 1 day}, if it exists.</li>
-     *             <li>Insert a new salary row effective from {@code effectiveFrom}.</li>
-     *         </ul>
-     *     </li>
+     *     <li>One {@code SELECT} (named query {@code Employee.findPromotionContext})
+     *         that checks the employee exists, detects a title already starting
+     *         on {@code effectiveFrom}, and loads the current title, current
+     *         salary and current department.</li>
+     *     <li>One {@code UPDATE} incrementing the employee's version, see
+     *         {@link #incrementVersions(Map)}.</li>
+     *     <li>At flush, one {@code UPDATE} closing the current title (and one
+     *         closing the current salary when {@code newSalary} is given), by
+     *         setting {@code to_date = effectiveFrom - 1 day}.</li>
+     *     <li>At flush, one {@code INSERT} each for the new title, the new
+     *         salary (if any) and the new {@code dept_manager} row (managers
+     *         only), sent as JDBC batches.</li>
      * </ul>
+     * <p>That is at most seven statements, against about ten when each row
+     * was looked up separately. The employee itself is never loaded; new rows
+     * reference it by {@link EntityManager#getReference}.</p>
+     *
+     * <p>The current rows are closed through the persistence context rather
+     * than with a bulk {@code UPDATE ... WHERE to_date = 9999-01-01}: a bulk
+     * statement makes Hibernate drop the whole {@code titles} and
+     * {@code salaries} cache regions, while an entity update only refreshes
+     * the affected entries.</p>
      *
      * <p><strong>Preconditions:</strong></p>
      * <ul>
      *     <li>The caller has already begun a transaction.</li>
-     *     <li>{@code employee} is a managed entity and not {@code null}.</li>
      * </ul>
      *
-     * @param employee      the employee being promoted (must be managed)
+     * @param empNo         the employee being promoted
      * @param newTitle      the new job title to assign
      * @param newSalary     the new salary to set; if {@code null}, salary history is unchanged
      * @param effectiveFrom the date from which the promotion takes effect
+     * @return {@link PromotionOutcome#PROMOTED} if the promotion is pending in
+     *         the transaction, otherwise the reason nothing was written
+     * @throws OptimisticLockException if the employee was promoted by another
+     *         transaction since the lookup
      */
-    public void promoteEmployee(Employee employee,
+    public PromotionOutcome promoteEmployee(int empNo,
+                                            String newTitle,
+                                            Integer newSalary,
+                                            LocalDate effectiveFrom) {
+
+        DaoOperationEvent event = DaoOperationEvent
+                .start("EmployeeDAO.promoteEmployee").empNo(empNo);
+        int rowCount = DaoOperationEvent.FAILED;
+        try {
+            List<Object[]> rows = em.createNamedQuery("Employee.findPromotionContext",
+                            Object[].class)
+                    .setParameter("empNo", empNo)
+                    .setParameter("effectiveFrom", effectiveFrom)
+                    .setParameter("maxDate", MAX_DATE)
+                    .getResultList();
+
+            PromotionOutcome outcome;
+            if (rows.isEmpty()) {
+                outcome = PromotionOutcome.NOT_FOUND;
+            } else if (((Number) rows.get(0)[3]).longValue() > 0) {
+                outcome = PromotionOutcome.DUPLICATE_DATE;
+            } else if (newTitle.equalsIgnoreCase("Manager") && rows.get(0)[2] == null) {
+                outcome = PromotionOutcome.NO_CURRENT_DEPARTMENT;
+            } else {
+                // several rows only if the history has more than one open row;
+                // like the batch path, the first one is closed
+                Object[] current = rows.get(0);
+                incrementVersions(Map.of(empNo, ((Number) current[4]).intValue()));
+                applyPromotion(em.getReference(Employee.class, empNo),
+                        (Titles) current[0], (Salaries) current[1], (String) current[2],
+                        newTitle, newSalary, effectiveFrom);
+                indexTitlesAfterCommit(Map.of(empNo, newTitle));
+                outcome = PromotionOutcome.PROMOTED;
+            }
+
+            rowCount = rows.size();
+            return outcome;
+        } finally {
+            event.finish(rowCount);
+        }
+    }
+
+    /**
+     * Batch endpoint helper:
+     * Performs the promotions of one chunk of a batch request.
+     *
+     * <p>Instead of looking up each employee's current rows one by one, the
+     * employees, their current titles, current salaries, current departments
+     * and any titles already starting on the requested dates are loaded for
+     * the whole chunk in five set-based queries. The resulting inserts and
+     * updates are then flushed by Hibernate in JDBC batches.</p>
+     *
+     * <p>Items that cannot be applied (unknown employee, promotion already
+     * effective on that date, manager without a current department) are
+     * skipped and reported in the result; the others are applied. The
+     * versions of all promoted employees are checked and incremented in one
+     * statement.</p>
+     *
+     * <p><strong>Preconditions:</strong></p>
+     * <ul>
+     *     <li>The caller has already begun a transaction.</li>
+     *     <li>Every request has passed basic validation and no employee
+     *         number appears twice in {@code requests}.</li>
+     * </ul>
+     *
+     * @param requests the promotion requests of this chunk
+     * @return one {@link PromotionResultDTO} per request, in request order
+     * @throws OptimisticLockException if any employee of the chunk was
+     *         promoted by another transaction since it was loaded
+     */
+    public List<PromotionResultDTO> promoteEmployees(List<PromotionRequestDTO> requests) {
+        DaoOperationEvent event = DaoOperationEvent.start("EmployeeDAO.promoteEmployees");
+        int rowCount = DaoOperationEvent.FAILED;
+        try {
+            Set<Integer> empNos = new HashSet<>();
+            Set<LocalDate> dates = new HashSet<>();
+            for (PromotionRequestDTO request : requests) {
+                empNos.add(request.getEmpNo());
+                dates.add(request.getEffectiveFrom());
+            }
+
+            // --- Preload everything the chunk needs ---
+
+            Map<Integer, Employee> employees = new HashMap<>();
+            em.createQuery("SELECT e FROM Employee e WHERE e.empNo IN :empNos",
+                            Employee.class)
+                    .setParameter("empNos", empNos)
+                    .getResultList()
+                    .forEach(e -> employees.put(e.getEmpNo(), e));
+
+            Map<Integer, Titles> currentTitles = new HashMap<>();
+            em.createQuery("SELECT t FROM Titles t " +
+                            "WHERE t.titleId.empNo IN :empNos AND t.toDate = :maxDate",
+                            Titles.class)
+                    .setParameter("empNos", empNos)
+                    .setParameter("maxDate", MAX_DATE)
+                    .getResultList()
+                    .forEach(t -> currentTitles.putIfAbsent(t.getTitleId().getEmpNo(), t));
+
+            Map<Integer, Salaries> currentSalaries = new HashMap<>();
+            em.createQuery("SELECT s FROM Salaries s " +
+                            "WHERE s.salaryId.empNo IN :empNos AND s.toDate = :maxDate",
+                            Salaries.class)
+                    .setParameter("empNos", empNos)
+                    .setParameter("maxDate", MAX_DATE)
+                    .getResultList()
+                    .forEach(s -> currentSalaries.putIfAbsent(s.getSalaryId().getEmpNo(), s));
+
+            Map<Integer, DeptEmp> currentDepts = new HashMap<>();
+            em.createQuery("SELECT de.employee.empNo, de FROM DeptEmp de " +
+                            "WHERE de.employee.empNo IN :empNos AND de.toDate = :maxDate",
+                            Object[].class)
+                    .setParameter("empNos", empNos)
+                    .setParameter("maxDate", MAX_DATE)
+                    .getResultList()
+                    .forEach(row -> currentDepts.putIfAbsent((Integer) row[0], (DeptEmp) row[1]));
+
+            Map<Integer, Set<LocalDate>> existingStarts = new HashMap<>();
+            em.createQuery("SELECT t.titleId.empNo, t.titleId.fromDate FROM Titles t " +
+                            "WHERE t.titleId.empNo IN :empNos AND t.titleId.fromDate IN :dates",
+                            Object[].class)
+                    .setParameter("empNos", empNos)
+                    .setParameter("dates", dates)
+                    .getResultList()
+                    .forEach(row -> existingStarts
+                            .computeIfAbsent((Integer) row[0], k -> new HashSet<>())
+                            .add((LocalDate) row[1]));
+
+            // --- Apply each promotion against the preloaded rows ---
+
+            List<PromotionResultDTO> results = new ArrayList<>(requests.size());
+            Map<Integer, Integer> versions = new HashMap<>();
+            Map<Integer, String> newTitles = new HashMap<>();
+            for (PromotionRequestDTO request : requests) {
+                int empNo = request.getEmpNo();
+                LocalDate effectiveFrom = request.getEffectiveFrom();
+                Employee employee = employees.get(empNo);
+
+                if (employee == null) {
+                    results.add(new PromotionResultDTO(empNo, 404,
+                            "Employee " + empNo + " not found"));
+                    continue;
+                }
+                if (existingStarts.getOrDefault(empNo, Set.of()).contains(effectiveFrom)) {
+                    results.add(new PromotionResultDTO(empNo, 400,
+                            "Employee already has a promotion effective on " + effectiveFrom));
+                    continue;
+                }
+
+                DeptEmp currentDeptEmp = currentDepts.get(empNo);
+                if (request.getNewTitle().equalsIgnoreCase("Manager") && currentDeptEmp == null) {
+                    results.add(new PromotionResultDTO(empNo, 400,
+                            "Employee " + empNo + " has no current department"));
+                    continue;
+                }
+
+                applyPromotion(employee, currentTitles.get(empNo), currentSalaries.get(empNo),
+                        currentDeptEmp == null ? null : currentDeptEmp.getDepartment().getDeptNo(),
+                        request.getNewTitle(), request.getNewSalary(), effectiveFrom);
+                versions.put(empNo, employee.getVersion());
+                newTitles.put(empNo, request.getNewTitle());
+                results.add(new PromotionResultDTO(empNo, 200,
+                        "Employee " + empNo + " promoted to '" + request.getNewTitle() + "'"));
+            }
+            incrementVersions(versions);
+            indexTitlesAfterCommit(newTitles);
+            rowCount = requests.size();
+            return results;
+        } finally {
+            event.finish(rowCount);
+        }
+    }
+
+    /**
+     * Applies a promotion given the employee's current history rows.
+     *
+     * <p>Closes {@code currentTitle} (and {@code currentSalary} when a new
+     * salary is given) the day before {@code effectiveFrom}, then inserts the
+     * new title, salary and, for managers, {@code dept_manager} rows.</p>
+     *
+     * @param employee       the employee being promoted (managed or a reference)
+     * @param currentTitle   the open title row, or {@code null} if none
+     * @param currentSalary  the open salary row, or {@code null} if none
+     * @param currentDeptNo  the employee's current department; required when
+     *                       {@code newTitle} is "Manager"
+     * @param newTitle       the new job title to assign
+     * @param newSalary      the new salary to set; if {@code null}, salary history is unchanged
+     * @param effectiveFrom  the date from which the promotion takes effect
+     * @throws IllegalStateException if a manager promotion has no current department
+     */
+    private void applyPromotion(Employee employee,
+                                Titles currentTitle,
+                                Salaries currentSalary,
+                                String currentDeptNo,
                                 String newTitle,
                                 Integer newSalary,
                                 LocalDate effectiveFrom) {
 
         int empNo = employee.getEmpNo();
-        LocalDate maxDate = LocalDate.of(9999, 1, 1);
 
         // --- Title history ---
 
-        // Find current title: to_date = 9999-01-01
-        TypedQuery<Titles> currentTitleQuery = em.createQuery(
-                "SELECT t FROM Titles t " +
-                        "WHERE t.titleId.empNo = :empNo AND t.toDate = :maxDate",
-                Titles.class);
-        currentTitleQuery.setParameter("empNo", empNo);
-        currentTitleQuery.setParameter("maxDate", maxDate);
-
-        Titles currentTitle = currentTitleQuery
-                .getResultStream()
-                .findFirst()
-                .orElse(null);
-
         // Close current title if exists
         if (currentTitle != null) {
             currentTitle.setToDate(effectiveFrom.minusDays(1));
@@ -107,7 +520,7 @@ public class EmployeeDAO {
         Titles newTitleEntity = new Titles();
         newTitleEntity.setTitleId(newTitleId);
         newTitleEntity.setEmployee(employee);
-        newTitleEntity.setToDate(maxDate);
+        newTitleEntity.setToDate(MAX_DATE);
 
         em.persist(newTitleEntity);
 
@@ -115,21 +528,14 @@ public class EmployeeDAO {
 
         if (newTitle.equalsIgnoreCase("Manager")) {
 
-            // 1) Find current dept for this employee (from dept_emp)
-            DeptEmp currentDeptEmp = em.createQuery(
-                    "SELECT de FROM DeptEmp de " +
-                            "WHERE de.employee.empNo = :empNo " +
-                            "AND de.toDate = :maxDate",
-                    DeptEmp.class)
-                    .setParameter("empNo", empNo)
-                    .setParameter("maxDate", maxDate)
-                    .getResultStream()
-                    .findFirst()
-                    .orElse(null);
+            if (currentDeptNo == null) {
+                throw new IllegalStateException(
+                        "Employee " + empNo + " has no current department");
+            }
 
-            Department dept = currentDeptEmp.getDepartment();
+            Department dept = em.getReference(Department.class, currentDeptNo);
 
-            // 2_ Build the new dept_manager row
+            // Build the new dept_manager row
             DeptManagerId newDeptManagerId = new DeptManagerId(
                     empNo,
                     dept.getDeptNo()
@@ -140,7 +546,7 @@ public class EmployeeDAO {
             manager.setEmployee(employee);
             manager.setDepartment(dept);
             manager.setFromDate(effectiveFrom);
-            manager.setToDate(maxDate);
+            manager.setToDate(MAX_DATE);
 
             em.persist(manager);
         }
@@ -148,19 +554,6 @@ public class EmployeeDAO {
         // --- Salary history (optional) ---
 
         if (newSalary != null) {
-            // Find current salary: to_date = 9999-01-01
-            TypedQuery<Salaries> currentSalaryQuery = em.createQuery(
-                    "SELECT s FROM Salaries s " +
-                            "WHERE s.salaryId.empNo = :empNo AND s.toDate = :maxDate",
-                    Salaries.class);
-            currentSalaryQuery.setParameter("empNo", empNo);
-            currentSalaryQuery.setParameter("maxDate", maxDate);
-
-            Salaries currentSalary = currentSalaryQuery
-                    .getResultStream()
-                    .findFirst()
-                    .orElse(null);
-
             if (currentSalary != null) {
                 currentSalary.setToDate(effectiveFrom.minusDays(1));
             }
@@ -174,9 +567,184 @@ public class EmployeeDAO {
             newSalaryEntity.setSalaryId(newSalaryId);
             newSalaryEntity.setEmployee(employee);
             newSalaryEntity.setSalary(newSalary);
-            newSalaryEntity.setToDate(maxDate);
+            newSalaryEntity.setToDate(MAX_DATE);
 
             em.persist(newSalaryEntity);
         }
     }
+
+    /**
+     * Tells whether a failed promotion transaction lost an optimistic-locking
+     * race and can be retried from the start.
+     *
+     * @param e the exception thrown by the transaction
+     * @return {@code true} if {@code e} or one of its causes reports a version conflict
+     */
+    public static boolean isVersionConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether a failed transaction failed because of the database
+     * rather than because of the data: the database could not be reached,
+     * the connection broke, or the transaction was aborted (deadlock, lock
+     * timeout). Such a transaction was rolled back and can be tried again
+     * unchanged once the database is back.
+     *
+     * @param e the exception thrown by the transaction
+     * @return {@code true} if {@code e} or one of its causes reports a
+     *         connection or transaction failure
+     */
+    public static boolean isDatabaseUnavailable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof JDBCConnectionException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException
+                    || t instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            // SQLSTATE class 08: connection exception, 40: transaction rollback
+            if (t instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("40"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Increments the version of each employee, provided it still has the
+     * version it was read with.
+     *
+     * <p>All employees are updated in a single statement,
+     * {@code UPDATE employees SET version = version + 1 WHERE (emp_no, version) IN (...)},
+     * which also locks their rows until the end of the transaction. If fewer
+     * rows match than employees were given, another transaction has promoted
+     * one of them since it was read.</p>
+     *
+     * <p>The statement is sent over JDBC rather than as a bulk JPQL update so
+     * that Hibernate does not drop the whole employee cache region. Instead,
+     * the cached entry of each employee is soft-locked before the update and
+     * released when the transaction completes, as Hibernate does for an
+     * entity update (see {@link #lockCachedEmployees(Map)}).</p>
+     *
+     * @param expectedVersions the version read for each employee, by employee number
+     * @throws OptimisticLockException if any employee's version has changed
+     */
+    private void incrementVersions(Map<Integer, Integer> expectedVersions) {
+        if (expectedVersions.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(
+                "UPDATE employees SET version = version + 1 WHERE (emp_no, version) IN (");
+        for (int i = 0; i < expectedVersions.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        sql.append(')');
+
+        lockCachedEmployees(expectedVersions);
+
+        // Through the session's JDBC coordinator, so the statement is counted
+        // by StatementCountingListener and the statistics like any other
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(sql.toString());
+        int updated;
+        try {
+            int index = 1;
+            for (Map.Entry<Integer, Integer> entry : expectedVersions.entrySet()) {
+                statement.setInt(index++, entry.getKey());
+                statement.setInt(index++, entry.getValue());
+            }
+            updated = jdbc.getResultSetReturn().executeUpdate(statement, sql.toString());
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper()
+                    .convert(e, "could not increment employee versions", sql.toString());
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+        if (updated != expectedVersions.size()) {
+            throw new OptimisticLockException((expectedVersions.size() - updated) +
+                    " of " + expectedVersions.size() +
+                    " employees were promoted concurrently");
+        }
+        recordVersionsAfterCommit(expectedVersions);
+    }
+
+    /**
+     * Soft-locks the cached row of each of the given employees until the
+     * current transaction completes.
+     *
+     * <p>While an entry is locked, loads cannot put it back into the
+     * {@code Employee} region. Once released, the entry only accepts rows
+     * with a version above the one given here, so a row read before the
+     * promotion committed is not cached even when its load finishes
+     * afterwards. Entries are released whether the transaction commits or
+     * rolls back.</p>
+     *
+     * <p>The cached title, salary and manager collections are evicted by
+     * Hibernate itself when the new history rows are written
+     * ({@code hibernate.cache.auto_evict_collection_cache}).</p>
+     *
+     * @param versions the version each employee had before the update, by employee number
+     */
+    private void lockCachedEmployees(Map<Integer, Integer> versions) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Employee.class);
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        if (cache == null) {
+            return;
+        }
+        Map<Object, SoftLock> locks = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : versions.entrySet()) {
+            Object key = cache.generateCacheKey(entry.getKey(), persister,
+                    session.getFactory(), session.getTenantIdentifier());
+            locks.put(key, cache.lockItem(session, key, entry.getValue()));
+        }
+        session.getActionQueue().registerProcess(
+                (success, completed) -> locks.forEach(
+                        (key, lock) -> cache.unlockItem(completed, key, lock)));
+    }
+
+    /**
+     * Records the incremented version of each employee in the
+     * {@link EmployeeVersionCache} once the current transaction has
+     * committed.
+     *
+     * @param expectedVersions the version each employee had before the update, by employee number
+     */
+    private void recordVersionsAfterCommit(Map<Integer, Integer> expectedVersions) {
+        em.unwrap(SessionImplementor.class).getActionQueue().registerProcess(
+                (success, session) -> {
+                    if (success) {
+                        expectedVersions.forEach(
+                                (empNo, version) -> EmployeeVersionCache.advance(empNo, version + 1));
+                    }
+                });
+    }
+
+    /**
+     * Moves each promoted employee to its new title in the
+     * {@link CurrentTitleIndex} once the current transaction has committed.
+     *
+     * @param newTitles the new title of each promoted employee, by employee number
+     */
+    private void indexTitlesAfterCommit(Map<Integer, String> newTitles) {
+        if (newTitles.isEmpty()) {
+            return;
+        }
+        em.unwrap(SessionImplementor.class).getActionQueue().registerProcess(
+                (success, session) -> {
+                    if (success) {
+                        newTitles.forEach(CurrentTitleIndex::setTitle);
+                    }
+                });
+    }
 }
@@ -0,0 +1,60 @@
+package jpa_demo_01.dao;
+
+import java.util.Set;
+
+/**
+ * Fetch profiles available when loading an {@link jpa_demo_01.entity.Employee}.
+ *
+ * <p>Each profile decides which history collections are fetched together
+ * with the employee row. {@link EmployeeDAO} fetches each of them with its
+ * own query.</p>
+ */
+public enum EmployeeFetchProfile {
+
+    /**
+     * The employee row only; no history collections.
+     */
+    SUMMARY(Set.of()),
+
+    /**
+     * The employee row plus salary and title history.
+     */
+    HISTORY(Set.of("salaries", "titles")),
+
+    /**
+     * The employee row plus all history collections.
+     */
+    FULL(Set.of("deptEmpList", "deptManagerList", "salaries", "titles"));
+
+    /**
+     * Names of the history collections the profile fetches.
+     */
+    private final Set<String> associations;
+
+    EmployeeFetchProfile(Set<String> associations) {
+        this.associations = associations;
+    }
+
+    /**
+     * @return the names of the history collections fetched by this profile
+     */
+    public Set<String> getAssociations() {
+        return associations;
+    }
+
+    /**
+     * Looks up a profile by its case-insensitive name, as passed in a query
+     * parameter (e.g. {@code "summary"}).
+     *
+     * @param name the profile name
+     * @return the matching profile, or {@code null} if there is none
+     */
+    public static EmployeeFetchProfile fromName(String name) {
+        for (EmployeeFetchProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+}
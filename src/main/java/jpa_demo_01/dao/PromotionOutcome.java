@@ -0,0 +1,48 @@
+package jpa_demo_01.dao;
+
+/**
+ * Result of {@link EmployeeDAO#promoteEmployee(int, String, Integer, java.time.LocalDate)}.
+ *
+ * <p>Only {@link #PROMOTED} leaves changes pending in the transaction; for
+ * every other outcome nothing was written and the caller may simply roll
+ * back.</p>
+ */
+public enum PromotionOutcome {
+
+    /**
+     * The promotion was applied; commit to make it permanent.
+     */
+    PROMOTED(200),
+
+    /**
+     * No employee has the given employee number.
+     */
+    NOT_FOUND(404),
+
+    /**
+     * The employee already has a title starting on the effective date.
+     */
+    DUPLICATE_DATE(400),
+
+    /**
+     * A promotion to Manager was requested for an employee without a
+     * current department.
+     */
+    NO_CURRENT_DEPARTMENT(400);
+
+    /**
+     * HTTP status reported for this outcome.
+     */
+    private final int status;
+
+    PromotionOutcome(int status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the HTTP status reported for this outcome
+     */
+    public int getStatus() {
+        return status;
+    }
+}
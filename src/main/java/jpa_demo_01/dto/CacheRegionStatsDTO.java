@@ -0,0 +1,72 @@
+package jpa_demo_01.dto;
+
+/**
+ * Data Transfer Object (DTO) with the statistics of one second-level
+ * cache region.
+ *
+ * <p>Returned by {@code GET /api/admin/cache}. Counts cover everything
+ * since startup.</p>
+ */
+public class CacheRegionStatsDTO {
+
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private long elementsInMemory;
+
+    /**
+     * Constructs a fully initialized {@code CacheRegionStatsDTO}.
+     *
+     * @param region           the region name
+     * @param hits             lookups answered from the region
+     * @param misses           lookups not found in the region
+     * @param puts             entries written to the region
+     * @param elementsInMemory entries currently held, or {@code -1} if unknown
+     */
+    public CacheRegionStatsDTO(String region, long hits, long misses, long puts,
+                               long elementsInMemory) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.elementsInMemory = elementsInMemory;
+    }
+
+    /**
+     * No-argument constructor required by some frameworks and libraries
+     * (e.g. Jackson) for object mapping.
+     */
+    public CacheRegionStatsDTO() {
+    }
+
+    /** @return the region name */
+    public String getRegion() { return region; }
+
+    /** @param region the region name to set */
+    public void setRegion(String region) { this.region = region; }
+
+    /** @return lookups answered from the region */
+    public long getHits() { return hits; }
+
+    /** @param hits lookups answered from the region */
+    public void setHits(long hits) { this.hits = hits; }
+
+    /** @return lookups not found in the region */
+    public long getMisses() { return misses; }
+
+    /** @param misses lookups not found in the region */
+    public void setMisses(long misses) { this.misses = misses; }
+
+    /** @return entries written to the region */
+    public long getPuts() { return puts; }
+
+    /** @param puts entries written to the region */
+    public void setPuts(long puts) { this.puts = puts; }
+
+    /** @return entries currently held, or {@code -1} if unknown */
+    public long getElementsInMemory() { return elementsInMemory; }
+
+    /** @param elementsInMemory entries currently held */
+    public void setElementsInMemory(long elementsInMemory) { this.elementsInMemory = elementsInMemory; }
+}
@@ -0,0 +1,79 @@
+package jpa_demo_01.dto;
+
+import jpa_demo_01.entity.Employee;
+
+import java.util.List;
+
+/**
+ * Response DTO of the employee multi-get, {@code GET /api/employees?ids=...}
+ * and {@code POST /api/employees/lookup}.
+ *
+ * <p>Carries the employees found, in the order their numbers were
+ * requested, and the requested numbers that matched no employee.</p>
+ */
+public class EmployeeBatchDTO {
+
+    /**
+     * Employees found, in request order.
+     */
+    private List<Employee> employees;
+
+    /**
+     * Requested employee numbers with no matching employee, in request order.
+     */
+    private List<Integer> missing;
+
+    /**
+     * Constructs a fully initialized {@code EmployeeBatchDTO}.
+     *
+     * @param employees the employees found, in request order
+     * @param missing   the employee numbers not found
+     */
+    public EmployeeBatchDTO(List<Employee> employees, List<Integer> missing) {
+        this.employees = employees;
+        this.missing = missing;
+    }
+
+    /**
+     * No-argument constructor required by some frameworks and libraries
+     * (e.g. Jackson) for object mapping.
+     */
+    public EmployeeBatchDTO() {
+    }
+
+    /**
+     * Returns the employees found.
+     *
+     * @return the employees, in request order
+     */
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    /**
+     * Sets the employees found.
+     *
+     * @param employees the employees to set
+     */
+    public void setEmployees(List<Employee> employees) {
+        this.employees = employees;
+    }
+
+    /**
+     * Returns the employee numbers that matched no employee.
+     *
+     * @return the missing employee numbers, in request order
+     */
+    public List<Integer> getMissing() {
+        return missing;
+    }
+
+    /**
+     * Sets the employee numbers that matched no employee.
+     *
+     * @param missing the missing employee numbers to set
+     */
+    public void setMissing(List<Integer> missing) {
+        this.missing = missing;
+    }
+}
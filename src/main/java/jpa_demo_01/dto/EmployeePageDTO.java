@@ -0,0 +1,131 @@
+package jpa_demo_01.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) wrapping one page of {@link EmployeeInfoDTO}
+ * returned by the department employee listing and the title holder listing.
+ *
+ * <p>Besides the page items it carries the department total and the highest
+ * page number (when requested), and the opaque cursor a client passes back
+ * as {@code after=} to fetch the next page. Fields that do not apply to the
+ * current request are left {@code null} and omitted from the JSON.</p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EmployeePageDTO {
+
+    /**
+     * Employees on this page, ordered by employee number.
+     */
+    private List<EmployeeInfoDTO> items;
+
+    /**
+     * Opaque cursor pointing after the last item of this page,
+     * or {@code null} if this is the last page.
+     */
+    private String nextCursor;
+
+    /**
+     * Total number of employees in the department,
+     * or {@code null} if the total was not requested.
+     */
+    private Long total;
+
+    /**
+     * Highest available page number for the page size in use,
+     * or {@code null} if the total was not requested.
+     */
+    private Long maxPage;
+
+    /**
+     * Constructs a page with the given items and next-page cursor.
+     *
+     * @param items      the employees on this page
+     * @param nextCursor the cursor for the next page, or {@code null} if none
+     */
+    public EmployeePageDTO(List<EmployeeInfoDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * No-argument constructor required by some frameworks and libraries
+     * (e.g. Jackson) for object mapping.
+     */
+    public EmployeePageDTO() {
+    }
+
+    /**
+     * Returns the employees on this page.
+     *
+     * @return the page items
+     */
+    public List<EmployeeInfoDTO> getItems() {
+        return items;
+    }
+
+    /**
+     * Sets the employees on this page.
+     *
+     * @param items the page items to set
+     */
+    public void setItems(List<EmployeeInfoDTO> items) {
+        this.items = items;
+    }
+
+    /**
+     * Returns the cursor for the next page.
+     *
+     * @return the next cursor, or {@code null} if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor for the next page.
+     *
+     * @param nextCursor the next cursor to set; may be {@code null}
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the total number of employees in the department.
+     *
+     * @return the total, or {@code null} if not requested
+     */
+    public Long getTotal() {
+        return total;
+    }
+
+    /**
+     * Sets the total number of employees in the department.
+     *
+     * @param total the total to set; may be {@code null}
+     */
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    /**
+     * Returns the highest available page number.
+     *
+     * @return the max page, or {@code null} if not requested
+     */
+    public Long getMaxPage() {
+        return maxPage;
+    }
+
+    /**
+     * Sets the highest available page number.
+     *
+     * @param maxPage the max page to set; may be {@code null}
+     */
+    public void setMaxPage(Long maxPage) {
+        this.maxPage = maxPage;
+    }
+}
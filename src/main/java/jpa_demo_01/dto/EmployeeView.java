@@ -0,0 +1,71 @@
+package jpa_demo_01.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import jpa_demo_01.entity.Employee;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * An {@link Employee} restricted to the properties a client selected with
+ * the {@code fields} and {@code include} query parameters of
+ * {@code GET /api/employees/{empNo}}.
+ *
+ * <p>Written as the employee itself, minus the properties not selected: the
+ * selection is handed to the {@value Employee#FIELDS_FILTER} property
+ * filter as a per-call serializer attribute, so the shared mappers need no
+ * per-request configuration.</p>
+ */
+@JsonSerialize(using = EmployeeView.Serializer.class)
+public class EmployeeView {
+
+    /**
+     * Serializer attribute holding the selected property names.
+     */
+    public static final String FIELDS_ATTRIBUTE = EmployeeView.class.getName() + ".fields";
+
+    private final Employee employee;
+
+    private final Set<String> fields;
+
+    /**
+     * Constructs a view of an employee.
+     *
+     * @param employee the employee to write
+     * @param fields   the names of the properties to write
+     */
+    public EmployeeView(Employee employee, Set<String> fields) {
+        this.employee = employee;
+        this.fields = fields;
+    }
+
+    /**
+     * @return the employee to write
+     */
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    /**
+     * @return the names of the properties to write
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Writes the employee with the selection in place.
+     */
+    public static class Serializer extends JsonSerializer<EmployeeView> {
+
+        @Override
+        public void serialize(EmployeeView view, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            provider.setAttribute(FIELDS_ATTRIBUTE, view.getFields());
+            provider.defaultSerializeValue(view.getEmployee(), gen);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package jpa_demo_01.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque {@code after=} cursor used by keyset
+ * pagination on the department employee listing.
+ *
+ * <p>The cursor wraps the last employee number of the previous page. It is
+ * Base64url-encoded so clients treat it as a token rather than building
+ * it themselves.</p>
+ */
+public final class PageCursor {
+
+    private static final String PREFIX = "emp:";
+
+    private PageCursor() {}
+
+    /**
+     * Encodes the given employee number as a cursor.
+     *
+     * @param empNo the last employee number on the current page
+     * @return the opaque cursor string
+     */
+    public static String encode(int empNo) {
+        byte[] raw = (PREFIX + empNo).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(int)}.
+     *
+     * @param cursor the opaque cursor string
+     * @return the employee number wrapped by the cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static int decode(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor),
+                StandardCharsets.US_ASCII);
+        if (!raw.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        int empNo = Integer.parseInt(raw.substring(PREFIX.length()));
+        if (empNo < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return empNo;
+    }
+}
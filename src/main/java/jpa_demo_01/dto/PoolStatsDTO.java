@@ -0,0 +1,119 @@
+package jpa_demo_01.dto;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) with a snapshot of the database connection pool.
+ *
+ * <p>Returned by {@code GET /api/admin/pool} to help size the pool against
+ * load: gauges describe the pool right now, the acquisition figures cover
+ * everything since startup.</p>
+ */
+public class PoolStatsDTO {
+
+    private String poolName;
+    private int active;
+    private int idle;
+    private int total;
+    private int waiting;
+    private int minimumIdle;
+    private int maximumPoolSize;
+    private long acquireCount;
+    private long acquireTimeouts;
+    private double acquireP50Millis;
+    private double acquireP95Millis;
+    private double acquireP99Millis;
+
+    /**
+     * Per-bucket (non-cumulative) counts of connection wait times, keyed by the
+     * bucket's upper bound in milliseconds ({@code "+Inf"} for overflow).
+     */
+    private Map<String, Long> acquireHistogramMillis;
+
+    /**
+     * No-argument constructor required by some frameworks and libraries
+     * (e.g. Jackson) for object mapping.
+     */
+    public PoolStatsDTO() {
+    }
+
+    /** @return the pool name */
+    public String getPoolName() { return poolName; }
+
+    /** @param poolName the pool name to set */
+    public void setPoolName(String poolName) { this.poolName = poolName; }
+
+    /** @return connections currently lent out */
+    public int getActive() { return active; }
+
+    /** @param active connections currently lent out */
+    public void setActive(int active) { this.active = active; }
+
+    /** @return connections currently idle in the pool */
+    public int getIdle() { return idle; }
+
+    /** @param idle connections currently idle in the pool */
+    public void setIdle(int idle) { this.idle = idle; }
+
+    /** @return connections currently open */
+    public int getTotal() { return total; }
+
+    /** @param total connections currently open */
+    public void setTotal(int total) { this.total = total; }
+
+    /** @return threads currently waiting for a connection */
+    public int getWaiting() { return waiting; }
+
+    /** @param waiting threads currently waiting for a connection */
+    public void setWaiting(int waiting) { this.waiting = waiting; }
+
+    /** @return configured minimum number of idle connections */
+    public int getMinimumIdle() { return minimumIdle; }
+
+    /** @param minimumIdle configured minimum number of idle connections */
+    public void setMinimumIdle(int minimumIdle) { this.minimumIdle = minimumIdle; }
+
+    /** @return configured maximum pool size */
+    public int getMaximumPoolSize() { return maximumPoolSize; }
+
+    /** @param maximumPoolSize configured maximum pool size */
+    public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+
+    /** @return successful acquisitions since startup */
+    public long getAcquireCount() { return acquireCount; }
+
+    /** @param acquireCount successful acquisitions since startup */
+    public void setAcquireCount(long acquireCount) { this.acquireCount = acquireCount; }
+
+    /** @return acquisitions that timed out since startup */
+    public long getAcquireTimeouts() { return acquireTimeouts; }
+
+    /** @param acquireTimeouts acquisitions that timed out since startup */
+    public void setAcquireTimeouts(long acquireTimeouts) { this.acquireTimeouts = acquireTimeouts; }
+
+    /** @return estimated median wait for a connection, in milliseconds */
+    public double getAcquireP50Millis() { return acquireP50Millis; }
+
+    /** @param acquireP50Millis estimated median wait, in milliseconds */
+    public void setAcquireP50Millis(double acquireP50Millis) { this.acquireP50Millis = acquireP50Millis; }
+
+    /** @return estimated 95th percentile wait, in milliseconds */
+    public double getAcquireP95Millis() { return acquireP95Millis; }
+
+    /** @param acquireP95Millis estimated 95th percentile wait, in milliseconds */
+    public void setAcquireP95Millis(double acquireP95Millis) { this.acquireP95Millis = acquireP95Millis; }
+
+    /** @return estimated 99th percentile wait, in milliseconds */
+    public double getAcquireP99Millis() { return acquireP99Millis; }
+
+    /** @param acquireP99Millis estimated 99th percentile wait, in milliseconds */
+    public void setAcquireP99Millis(double acquireP99Millis) { this.acquireP99Millis = acquireP99Millis; }
+
+    /** @return bucket counts of connection wait times */
+    public Map<String, Long> getAcquireHistogramMillis() { return acquireHistogramMillis; }
+
+    /** @param acquireHistogramMillis bucket counts of connection wait times */
+    public void setAcquireHistogramMillis(Map<String, Long> acquireHistogramMillis) {
+        this.acquireHistogramMillis = acquireHistogramMillis;
+    }
+}
@@ -0,0 +1,101 @@
+package jpa_demo_01.dto;
+
+/**
+ * Response DTO describing the outcome of one promotion inside a batch.
+ *
+ * <p>Returned, one per request item and in request order, by the
+ * {@code POST /api/employees/promotions/batch} endpoint. The status uses
+ * the HTTP status code the item would have received from the single
+ * promotion endpoint.</p>
+ */
+public class PromotionResultDTO {
+
+    /**
+     * Employee number from the request item.
+     */
+    private int empNo;
+
+    /**
+     * HTTP-style status code of the outcome (e.g. 200, 400, 404, 500).
+     */
+    private int status;
+
+    /**
+     * Human-readable description of the outcome.
+     */
+    private String message;
+
+    /**
+     * Constructs a fully initialized {@code PromotionResultDTO}.
+     *
+     * @param empNo   the employee number from the request item
+     * @param status  the HTTP-style status code of the outcome
+     * @param message a description of the outcome
+     */
+    public PromotionResultDTO(int empNo, int status, String message) {
+        this.empNo = empNo;
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * No-argument constructor required by some frameworks and libraries
+     * (e.g. Jackson) for object mapping.
+     */
+    public PromotionResultDTO() {
+    }
+
+    /**
+     * Returns the employee number.
+     *
+     * @return the employee number
+     */
+    public int getEmpNo() {
+        return empNo;
+    }
+
+    /**
+     * Sets the employee number.
+     *
+     * @param empNo the employee number to set
+     */
+    public void setEmpNo(int empNo) {
+        this.empNo = empNo;
+    }
+
+    /**
+     * Returns the status code of the outcome.
+     *
+     * @return the status code
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the status code of the outcome.
+     *
+     * @param status the status code to set
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * Returns the description of the outcome.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the description of the outcome.
+     *
+     * @param message the message to set
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,113 @@
+package jpa_demo_01.dto;
+
+/**
+ * Response DTO describing a promotion accepted for asynchronous processing.
+ *
+ * <p>Returned by {@code POST /api/employees/promotions/async} when the
+ * promotion is queued, and by
+ * {@code GET /api/employees/promotions/async/{trackingId}} afterwards. Once
+ * the promotion has been applied (or rejected), the state is {@code DONE}
+ * and {@code result} holds the same outcome the batch endpoint would
+ * report for it.</p>
+ */
+public class PromotionStatusDTO {
+
+    /**
+     * State of a promotion that is journalled but not yet applied.
+     */
+    public static final String PENDING = "PENDING";
+
+    /**
+     * State of a promotion whose outcome is known.
+     */
+    public static final String DONE = "DONE";
+
+    /**
+     * Identifier returned to the client for tracking the promotion.
+     */
+    private long trackingId;
+
+    /**
+     * Either {@value #PENDING} or {@value #DONE}.
+     */
+    private String state;
+
+    /**
+     * Outcome of the promotion; {@code null} while pending.
+     */
+    private PromotionResultDTO result;
+
+    /**
+     * Constructs a fully initialized {@code PromotionStatusDTO}.
+     *
+     * @param trackingId the tracking identifier
+     * @param state      {@value #PENDING} or {@value #DONE}
+     * @param result     the outcome, or {@code null} while pending
+     */
+    public PromotionStatusDTO(long trackingId, String state, PromotionResultDTO result) {
+        this.trackingId = trackingId;
+        this.state = state;
+        this.result = result;
+    }
+
+    /**
+     * No-argument constructor required by some frameworks and libraries
+     * (e.g. Jackson) for object mapping.
+     */
+    public PromotionStatusDTO() {
+    }
+
+    /**
+     * Returns the tracking identifier.
+     *
+     * @return the tracking identifier
+     */
+    public long getTrackingId() {
+        return trackingId;
+    }
+
+    /**
+     * Sets the tracking identifier.
+     *
+     * @param trackingId the tracking identifier to set
+     */
+    public void setTrackingId(long trackingId) {
+        this.trackingId = trackingId;
+    }
+
+    /**
+     * Returns the processing state.
+     *
+     * @return {@value #PENDING} or {@value #DONE}
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Sets the processing state.
+     *
+     * @param state the state to set
+     */
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    /**
+     * Returns the outcome of the promotion.
+     *
+     * @return the outcome, or {@code null} while pending
+     */
+    public PromotionResultDTO getResult() {
+        return result;
+    }
+
+    /**
+     * Sets the outcome of the promotion.
+     *
+     * @param result the outcome to set
+     */
+    public void setResult(PromotionResultDTO result) {
+        this.result = result;
+    }
+}
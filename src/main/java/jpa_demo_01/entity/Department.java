@@ -1,16 +1,25 @@
 package jpa_demo_01.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entity representing a department in the departments table.
  * Each department consists of department number and a department name.
+ *
+ * <p>Departments are reference data that the application never writes, so
+ * they are held in a read-only second-level cache region and the list of
+ * all departments is served from the query cache.</p>
  */
 @Entity
 @Table(name = "departments")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @NamedQuery(
         name = "Department.findAllDepartments",
-        query = "SELECT d FROM Department d"
+        query = "SELECT d FROM Department d",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")
 )
 public class Department {
     /**
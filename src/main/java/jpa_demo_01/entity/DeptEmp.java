@@ -3,6 +3,8 @@ package jpa_demo_01.entity;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Objects;
@@ -85,6 +87,8 @@ class DeptEmpId implements Serializable {
  */
 @Entity
 @Table(name = "dept_emp")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NamedQuery(
         name = "DeptEmp.findEmployeesByDept",
         query = "SELECT new jpa_demo_01.dto.EmployeeInfoDTO(e.empNo, " +
@@ -92,6 +96,13 @@ class DeptEmpId implements Serializable {
                 "de.employee e WHERE de.department.deptNo = :deptNo ORDER BY " +
                 "e.empNo"
 )
+@NamedQuery(
+        name = "DeptEmp.findEmployeesByDeptAfter",
+        query = "SELECT new jpa_demo_01.dto.EmployeeInfoDTO(e.empNo, " +
+                "e.firstName, e.lastName, e.hireDate) FROM DeptEmp de JOIN " +
+                "de.employee e WHERE de.id.deptNo = :deptNo AND " +
+                "de.id.empNo > :afterEmpNo ORDER BY de.id.empNo"
+)
 public class DeptEmp {
 
     /**
@@ -104,7 +115,7 @@ public class DeptEmp {
      * Reference to employee entity.
      * Mapped via empNo inside composite key.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("empNo")
     @JoinColumn(name = "emp_no")
     @JsonIgnore
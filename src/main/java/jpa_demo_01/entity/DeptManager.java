@@ -3,6 +3,8 @@ package jpa_demo_01.entity;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.Column;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 import java.io.Serializable;
@@ -14,6 +16,8 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "dept_manager")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class DeptManager {
 
     /**
@@ -26,7 +30,7 @@ public class DeptManager {
      * Employee entity associated with the manager record.
      * Mapped via empNo portion in composite key.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("empNo")
     @JoinColumn(name = "emp_no")
     @JsonIgnore
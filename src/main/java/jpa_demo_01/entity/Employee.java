@@ -1,20 +1,67 @@
 package jpa_demo_01.entity;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Set;
 
 /**
  * Represents an employee entity mapped to the employees table.
  * Stores personal information, employment details, and relationships
  * with departments, managers, salaries, and titles.
+ *
+ * <p>All history collections are loaded lazily. Callers choose how much of
+ * the history to fetch up front with an
+ * {@link jpa_demo_01.dao.EmployeeFetchProfile}; the DAO fetches each
+ * selected collection with its own query. The collections are ordered
+ * sets.</p>
+ *
+ * <p>The employee and its history collections are kept in read-write
+ * second-level cache regions.</p>
+ *
+ * <p>{@link #getVersion() version} is incremented by every promotion, so
+ * two concurrent promotions of the same employee cannot both commit.</p>
+ *
+ * <p>JSON properties pass through the {@value #FIELDS_FILTER} property
+ * filter, which writes only the fields a client selected with
+ * {@code fields=} (see {@code EmployeeView}) and everything otherwise.</p>
  */
 @Entity
 @Table(name="employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedQuery(
+        name = "Employee.findPromotionContext",
+        query = "SELECT t, s, de.department.deptNo, " +
+                "(SELECT COUNT(x) FROM Titles x " +
+                " WHERE x.titleId.empNo = e.empNo AND x.titleId.fromDate = :effectiveFrom), " +
+                "e.version " +
+                "FROM Employee e " +
+                "LEFT JOIN Titles t ON t.titleId.empNo = e.empNo AND t.toDate = :maxDate " +
+                "LEFT JOIN Salaries s ON s.salaryId.empNo = e.empNo AND s.toDate = :maxDate " +
+                "LEFT JOIN DeptEmp de ON de.employee.empNo = e.empNo AND de.toDate = :maxDate " +
+                "WHERE e.empNo = :empNo"
+)
+@NamedQuery(
+        name = "Employee.findAllNames",
+        query = "SELECT new jpa_demo_01.dto.EmployeeInfoDTO(e.empNo, " +
+                "e.firstName, e.lastName, e.hireDate) FROM Employee e"
+)
+@JsonFilter(Employee.FIELDS_FILTER)
 public class Employee {
 
+    /**
+     * Id of the Jackson property filter applied to employees.
+     */
+    public static final String FIELDS_FILTER = "Employee.fields";
+
     /**
      * Enum representing gender values stored as strings.
      */
@@ -64,28 +111,44 @@ public class Employee {
     private LocalDate hireDate;
 
     /**
-     * List of department-employee relationships for the employee.
+     * Optimistic lock version, incremented on every promotion.
      */
-    @OneToMany(mappedBy = "employee", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
-    private List<DeptEmp> deptEmpList;
+    @Version
+    @JsonIgnore
+    @Column(name = "version", nullable = false, columnDefinition = "int not null default 0")
+    private int version;
 
     /**
-     * List of department-manager relationships for the employee.
+     * Department-employee relationships for the employee, oldest first.
      */
-    @OneToMany(mappedBy = "employee", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
-    private List<DeptManager> deptManagerList;
+    @OneToMany(mappedBy = "employee", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OrderBy("fromDate")
+    private Set<DeptEmp> deptEmpList;
 
     /**
-     * List of salary records associated with the employee.
+     * Department-manager relationships for the employee, oldest first.
      */
-    @OneToMany(mappedBy = "employee", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
-    private List<Salaries> salaries;
+    @OneToMany(mappedBy = "employee", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OrderBy("fromDate")
+    private Set<DeptManager> deptManagerList;
 
     /**
-     * List of job titles held by the employee over time.
+     * Salary records associated with the employee, oldest first.
      */
-    @OneToMany(mappedBy = "employee", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
-    private List<Titles> titles;
+    @OneToMany(mappedBy = "employee", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OrderBy("salaryId.fromDate")
+    private Set<Salaries> salaries;
+
+    /**
+     * Job titles held by the employee over time, oldest first.
+     */
+    @OneToMany(mappedBy = "employee", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @OrderBy("titleId.fromDate")
+    private Set<Titles> titles;
 
     /**
      * Default constructor.
@@ -161,25 +224,50 @@ public class Employee {
      */
     public void setHireDate(LocalDate hireDate) { this.hireDate = hireDate; }
 
+    /**
+     * @return the optimistic lock version
+     */
+    public int getVersion() { return version; }
+
     /**
      * @return list of department-employee relations
      */
-    public List<DeptEmp> getDeptEmpList() { return deptEmpList; }
+    public Set<DeptEmp> getDeptEmpList() { return deptEmpList; }
 
     /**
      * @return list of department-manager relations
      */
-    public List<DeptManager> getDeptManagerList() { return deptManagerList; }
+    public Set<DeptManager> getDeptManagerList() { return deptManagerList; }
 
     /**
      * @return list of salary records
      */
-    public List<Salaries> getSalaries() { return salaries; }
+    public Set<Salaries> getSalaries() { return salaries; }
 
     /**
      * @return list of job titles held by the employee
      */
-    public List<Titles> getTitles() { return titles; }
+    public Set<Titles> getTitles() { return titles; }
+
+    /**
+     * Returns the title the employee currently holds, i.e. the title row
+     * open until 9999-01-01.
+     *
+     * @return the current title, or {@code null} if the employee has none or
+     *         the titles were not loaded
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getCurrentTitle() {
+        if (titles == null || !Hibernate.isInitialized(titles)) {
+            return null;
+        }
+        for (Titles title : titles) {
+            if (title.getToDate() != null && title.getToDate().getYear() == 9999) {
+                return title.getTitleId().getTitle();
+            }
+        }
+        return null;
+    }
 
     /**
      * Returns a formatted string representation of the employee object.
@@ -2,6 +2,8 @@ package jpa_demo_01.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 
@@ -11,6 +13,8 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name="salaries")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NamedQuery(
         name = "Salaries.findCurrentSalary",
         query = "SELECT s FROM Salaries s " +
@@ -40,7 +44,7 @@ public class Salaries {
     /**
      * Employee associated with this salary record.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("empNo")
     @JoinColumn(name = "emp_no", insertable = false, updatable = false)
     @JsonIgnore
@@ -2,6 +2,8 @@ package jpa_demo_01.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 
@@ -12,6 +14,8 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name="titles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NamedQuery(
         name = "Titles.findCurrentTitle",
         query = "SELECT t FROM Titles t " +
@@ -37,7 +41,7 @@ public class Titles {
      * Reference to the associated employee. Mapped via emp_no in the composite key.
      * Marked with {@link JsonIgnore} to avoid circular serialization.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("empNo")
     @JoinColumn(name = "emp_no", insertable = false, updatable = false)
     @JsonIgnore
@@ -0,0 +1,126 @@
+package jpa_demo_01.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for one DAO call.
+ *
+ * <p>Lets a recording attribute JDBC activity to the business operation
+ * that caused it. Usage:</p>
+ * <pre>{@code
+ * DaoOperationEvent event = DaoOperationEvent.start("DepartmentDAO.findAll");
+ * int rows = DaoOperationEvent.FAILED;
+ * try {
+ *     List<Department> departments = query.getResultList();
+ *     rows = departments.size();
+ *     return departments;
+ * } finally {
+ *     event.finish(rows);
+ * }
+ * }</pre>
+ *
+ * <p>Finishing in {@code finally} records failed calls too, with
+ * {@link #FAILED} rows, so slow failures (lock waits, timeouts) show up
+ * in a recording.</p>
+ *
+ * <p>When the event is disabled, {@link #start(String)} and
+ * {@link #finish(int)} do no more than a couple of checks. The statement
+ * count comes from {@link StatementCountingListener} and is only available
+ * while serving an HTTP request (zero otherwise).</p>
+ */
+@Name("jpa_demo_01.DaoOperation")
+@Label("DAO Operation")
+@Category({"Employees API", "Persistence"})
+@Description("A DAO call, with the rows it returned and the JDBC statements it issued")
+@StackTrace(false)
+public class DaoOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Department Number")
+    String deptNo;
+
+    @Label("Employee Number")
+    int empNo;
+
+    /**
+     * Row count recorded for a call that threw.
+     */
+    public static final int FAILED = -1;
+
+    @Label("Rows")
+    @Description("Rows returned, or items processed for writes; -1 if the call failed")
+    int rows;
+
+    @Label("Statements")
+    @Description("JDBC statements executed during the call")
+    int statements;
+
+    /**
+     * Statement count of the current request when the call started.
+     */
+    private transient int statementsAtStart;
+
+    private DaoOperationEvent(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Creates the event for a DAO call and starts timing it.
+     *
+     * @param operation the DAO method, e.g. {@code DepartmentDAO.findAll}
+     * @return the started event
+     */
+    public static DaoOperationEvent start(String operation) {
+        DaoOperationEvent event = new DaoOperationEvent(operation);
+        if (event.isEnabled()) {
+            event.statementsAtStart = StatementCountingListener.currentCount();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Sets the department the call is about.
+     *
+     * @param deptNo the department number
+     * @return this event
+     */
+    public DaoOperationEvent deptNo(String deptNo) {
+        this.deptNo = deptNo;
+        return this;
+    }
+
+    /**
+     * Sets the employee the call is about.
+     *
+     * @param empNo the employee number
+     * @return this event
+     */
+    public DaoOperationEvent empNo(int empNo) {
+        this.empNo = empNo;
+        return this;
+    }
+
+    /**
+     * Stops timing and commits the event if it passes the recording's
+     * threshold.
+     *
+     * @param rows rows returned (or items processed) by the call, or
+     *             {@link #FAILED} if it threw
+     */
+    public void finish(int rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            this.statements = StatementCountingListener.currentCount() - statementsAtStart;
+            commit();
+        }
+    }
+}
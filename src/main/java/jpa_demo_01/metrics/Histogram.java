@@ -0,0 +1,143 @@
+package jpa_demo_01.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, fixed-bucket histogram of non-negative {@code long} samples.
+ *
+ * <p>Each bucket counts the samples less than or equal to its upper bound
+ * (and greater than the previous bound); one extra overflow bucket counts
+ * everything above the last bound. Recording a sample is a binary search
+ * plus one atomic increment, so it is cheap enough for request hot paths.
+ * Percentiles are estimated as the upper bound of the bucket that contains
+ * them.</p>
+ */
+public class Histogram {
+
+    /**
+     * Bucket bounds (nanoseconds) used for latency histograms: 1-2-5 steps
+     * from 100 microseconds to 30 seconds.
+     */
+    private static final long[] LATENCY_BOUNDS_NANOS = {
+            100_000L, 200_000L, 500_000L,
+            1_000_000L, 2_000_000L, 5_000_000L,
+            10_000_000L, 20_000_000L, 50_000_000L,
+            100_000_000L, 200_000_000L, 500_000_000L,
+            1_000_000_000L, 2_000_000_000L, 5_000_000_000L,
+            10_000_000_000L, 30_000_000_000L
+    };
+
+    /**
+     * Inclusive upper bound of each bucket, ascending.
+     */
+    private final long[] upperBounds;
+
+    /**
+     * Sample count per bucket; the last slot is the overflow bucket.
+     */
+    private final AtomicLongArray counts;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Creates a histogram with the given bucket bounds.
+     *
+     * @param upperBounds inclusive bucket upper bounds, strictly ascending
+     */
+    public Histogram(long[] upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        this.counts = new AtomicLongArray(upperBounds.length + 1);
+    }
+
+    /**
+     * Creates a histogram suited to latencies recorded in nanoseconds.
+     *
+     * @return a new, empty latency histogram
+     */
+    public static Histogram forLatencyNanos() {
+        return new Histogram(LATENCY_BOUNDS_NANOS);
+    }
+
+    /**
+     * Records one sample.
+     *
+     * @param value the sample; negative values are counted as zero
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        int index = Arrays.binarySearch(upperBounds, v);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        counts.incrementAndGet(index);
+        count.increment();
+        sum.add(v);
+    }
+
+    /**
+     * @return the number of samples recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of all samples recorded
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return a copy of the bucket upper bounds
+     */
+    public long[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    /**
+     * Returns a snapshot of the per-bucket counts (not cumulative). The
+     * array has one more slot than {@link #getUpperBounds()}, for samples
+     * above the last bound.
+     *
+     * @return the bucket counts
+     */
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket containing it.
+     *
+     * @param quantile the quantile, between 0 and 1 (e.g. 0.99)
+     * @return the estimated value, {@code 0} if nothing has been recorded, or
+     *         {@link Long#MAX_VALUE} if it falls in the overflow bucket
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = getBucketCounts();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i < upperBounds.length ? upperBounds[i] : Long.MAX_VALUE;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,163 @@
+package jpa_demo_01.metrics;
+
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records per-route request metrics into {@link RequestMetrics}.
+ *
+ * <p>Latency is measured from the request filter to the end of the response
+ * body, so streamed responses are timed in full. Responses without a body
+ * are recorded by the response filter; the others by the writer
+ * interceptor, which also counts the bytes written. The route template of
+ * each resource method is resolved once and cached; requests that match no
+ * resource method are reported under {@value RequestMetrics#UNMATCHED_ROUTE}.</p>
+ */
+@Provider
+@PreMatching
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter,
+        WriterInterceptor {
+
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+    private static final String STATEMENTS_PROPERTY =
+            MetricsFilter.class.getName() + ".statements";
+    private static final String ROUTE_PROPERTY = MetricsFilter.class.getName() + ".route";
+    private static final String STATUS_PROPERTY = MetricsFilter.class.getName() + ".status";
+
+    /**
+     * Route templates keyed by resource method.
+     */
+    private static final Map<Method, String> TEMPLATES = new ConcurrentHashMap<>();
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        request.setProperty(START_PROPERTY, System.nanoTime());
+        request.setProperty(STATEMENTS_PROPERTY, StatementCountingListener.begin());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object start = request.getProperty(START_PROPERTY);
+        if (start == null) {
+            // request filter did not run, e.g. it failed before reaching Jersey
+            return;
+        }
+
+        RouteMetrics route = RequestMetrics.forRoute(request.getMethod(), routeOf());
+        if (response.hasEntity()) {
+            request.setProperty(ROUTE_PROPERTY, route);
+            request.setProperty(STATUS_PROPERTY, response.getStatus());
+        } else {
+            route.record(response.getStatus(), System.nanoTime() - (Long) start, -1,
+                    statementCount(request.getProperty(STATEMENTS_PROPERTY)));
+            StatementCountingListener.end();
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        RouteMetrics route = (RouteMetrics) context.getProperty(ROUTE_PROPERTY);
+        if (route == null) {
+            context.proceed();
+            return;
+        }
+
+        CountingOutputStream counting = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(counting);
+        try {
+            context.proceed();
+        } finally {
+            route.record((Integer) context.getProperty(STATUS_PROPERTY),
+                    System.nanoTime() - (Long) context.getProperty(START_PROPERTY),
+                    counting.count,
+                    statementCount(context.getProperty(STATEMENTS_PROPERTY)));
+            StatementCountingListener.end();
+        }
+    }
+
+    /**
+     * Returns the path template of the matched resource method, e.g.
+     * {@code /departments/{deptNo}}.
+     */
+    private String routeOf() {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) {
+            return RequestMetrics.UNMATCHED_ROUTE;
+        }
+        String template = TEMPLATES.get(method);
+        if (template == null) {
+            template = TEMPLATES.computeIfAbsent(method,
+                    m -> template(resourceInfo.getResourceClass(), m));
+        }
+        return template;
+    }
+
+    private static String template(Class<?> resourceClass, Method method) {
+        StringBuilder template = new StringBuilder();
+        appendPath(template, resourceClass.getAnnotation(Path.class));
+        appendPath(template, method.getAnnotation(Path.class));
+        return template.length() == 0 ? "/" : template.toString();
+    }
+
+    private static void appendPath(StringBuilder template, Path path) {
+        if (path == null) {
+            return;
+        }
+        String value = path.value();
+        if (value.endsWith("/")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        if (!value.isEmpty() && !value.startsWith("/")) {
+            template.append('/');
+        }
+        template.append(value);
+    }
+
+    private static int statementCount(Object counter) {
+        return counter == null ? 0 : ((AtomicInteger) counter).get();
+    }
+
+    /**
+     * Passes bytes through while counting them.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package jpa_demo_01.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HikariCP metrics hook recording how long callers wait for a connection.
+ *
+ * <p>Installed on the pool by {@link jpa_demo_01.config.JPAUtil}. Hikari
+ * reports every successful acquisition and every acquisition timeout here;
+ * the gauges (active, idle, waiting) are read from the pool itself.</p>
+ */
+public class PoolMetricsTracker implements MetricsTrackerFactory, IMetricsTracker {
+
+    private final Histogram acquireNanos = Histogram.forLatencyNanos();
+    private final Histogram usageMillis = new Histogram(new long[] {
+            1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 30_000
+    });
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * Returns this tracker for the pool being created.
+     *
+     * @param poolName  the name of the pool
+     * @param poolStats live pool statistics (unused; read from the pool directly)
+     * @return this tracker
+     */
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return this;
+    }
+
+    /**
+     * Records the time a caller waited for a connection.
+     *
+     * @param elapsedAcquiredNanos the wait time in nanoseconds
+     */
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquireNanos.record(elapsedAcquiredNanos);
+    }
+
+    /**
+     * Records how long a connection was held before being returned.
+     *
+     * @param elapsedBorrowedMillis the time the connection was in use
+     */
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageMillis.record(elapsedBorrowedMillis);
+    }
+
+    /**
+     * Records a caller giving up after the connection timeout.
+     */
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    /**
+     * @return the histogram of connection wait times, in nanoseconds
+     */
+    public Histogram getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    /**
+     * @return the histogram of connection hold times, in milliseconds
+     */
+    public Histogram getUsageMillis() {
+        return usageMillis;
+    }
+
+    /**
+     * @return the number of acquisitions that timed out
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+}
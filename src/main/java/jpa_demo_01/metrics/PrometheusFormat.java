@@ -0,0 +1,148 @@
+package jpa_demo_01.metrics;
+
+import java.util.Map;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4).
+ *
+ * <p>Each family is started with {@link #family(String, String, String)}
+ * and followed by its samples. Label values are escaped as the format
+ * requires; histograms are written with cumulative {@code le} buckets.</p>
+ */
+public class PrometheusFormat {
+
+    /**
+     * Content type of the text exposition format.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(16_384);
+
+    /**
+     * Starts a metric family.
+     *
+     * @param name the family name
+     * @param type {@code counter}, {@code gauge} or {@code histogram}
+     * @param help a one-line description
+     * @return this writer
+     */
+    public PrometheusFormat family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes one sample.
+     *
+     * @param name   the sample name
+     * @param labels label names and values, alternating; may be empty
+     * @param value  the sample value
+     * @return this writer
+     */
+    public PrometheusFormat sample(String name, String[] labels, double value) {
+        out.append(name);
+        appendLabels(labels, null, null);
+        out.append(' ').append(formatValue(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes the samples of one histogram series.
+     *
+     * @param name   the family name
+     * @param labels label names and values, alternating; may be empty
+     * @param histogram the histogram to write
+     * @param scale  divisor converting recorded values to the exported unit
+     *               (e.g. {@code 1e9} for nanoseconds to seconds)
+     * @return this writer
+     */
+    public PrometheusFormat histogram(String name, String[] labels, Histogram histogram,
+                                      double scale) {
+        long[] bounds = histogram.getUpperBounds();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            out.append(name).append("_bucket");
+            appendLabels(labels, "le",
+                    i < bounds.length ? formatValue(bounds[i] / scale) : "+Inf");
+            out.append(' ').append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum");
+        appendLabels(labels, null, null);
+        out.append(' ').append(formatValue(histogram.getSum() / scale)).append('\n');
+        out.append(name).append("_count");
+        appendLabels(labels, null, null);
+        out.append(' ').append(cumulative).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes one counter sample per map entry, labelled with the entry key.
+     *
+     * @param name     the sample name
+     * @param labels   the labels shared by every sample
+     * @param labelName the label carrying the map key
+     * @param values   the values keyed by label value
+     * @return this writer
+     */
+    public PrometheusFormat samples(String name, String[] labels, String labelName,
+                                    Map<?, ? extends Number> values) {
+        values.forEach((key, value) -> {
+            out.append(name);
+            appendLabels(labels, labelName, String.valueOf(key));
+            out.append(' ').append(formatValue(value.doubleValue())).append('\n');
+        });
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void appendLabels(String[] labels, String extraName, String extraValue) {
+        if (labels.length == 0 && extraName == null) {
+            return;
+        }
+        out.append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendLabel(labels[i], labels[i + 1]);
+        }
+        if (extraName != null) {
+            if (labels.length > 0) {
+                out.append(',');
+            }
+            appendLabel(extraName, extraValue);
+        }
+        out.append('}');
+    }
+
+    private void appendLabel(String name, String value) {
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static String formatValue(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
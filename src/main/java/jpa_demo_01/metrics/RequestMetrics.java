@@ -0,0 +1,51 @@
+package jpa_demo_01.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link RouteMetrics}, one per HTTP method and route.
+ *
+ * <p>Filled in by {@link MetricsFilter} and read by the {@code /metrics}
+ * resource. All methods are thread-safe.</p>
+ */
+public final class RequestMetrics {
+
+    /**
+     * Route reported for requests that did not match any resource method.
+     */
+    public static final String UNMATCHED_ROUTE = "unmatched";
+
+    private static final Map<String, RouteMetrics> ROUTES = new ConcurrentHashMap<>();
+
+    private RequestMetrics() {}
+
+    /**
+     * Returns the metrics of a route, creating them on first use.
+     *
+     * @param method the HTTP method
+     * @param route  the resource path template
+     * @return the metrics of that route
+     */
+    public static RouteMetrics forRoute(String method, String route) {
+        String key = method + ' ' + route;
+        RouteMetrics metrics = ROUTES.get(key);
+        if (metrics == null) {
+            metrics = ROUTES.computeIfAbsent(key, k -> new RouteMetrics(method, route));
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of every route seen so far, ordered by route and method
+     */
+    public static List<RouteMetrics> getRoutes() {
+        List<RouteMetrics> routes = new ArrayList<>(ROUTES.values());
+        routes.sort(Comparator.comparing(RouteMetrics::getRoute)
+                .thenComparing(RouteMetrics::getMethod));
+        return routes;
+    }
+}
@@ -0,0 +1,100 @@
+package jpa_demo_01.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one route: latency, response status counts, response size and
+ * JDBC statements executed per request.
+ *
+ * <p>A route is an HTTP method plus a resource path template such as
+ * {@code /departments/{deptNo}}, so every department shares one set of
+ * metrics. Instances are obtained from {@link RequestMetrics}.</p>
+ */
+public class RouteMetrics {
+
+    private static final long[] SIZE_BOUNDS_BYTES = {
+            256, 1_024, 4_096, 16_384, 65_536, 262_144,
+            1_048_576, 4_194_304, 16_777_216, 67_108_864
+    };
+
+    private static final long[] STATEMENT_BOUNDS = {
+            0, 1, 2, 3, 5, 10, 20, 50, 100, 200, 500, 1_000
+    };
+
+    private final String method;
+    private final String route;
+
+    private final Histogram latencyNanos = Histogram.forLatencyNanos();
+    private final Histogram responseBytes = new Histogram(SIZE_BOUNDS_BYTES);
+    private final Histogram statements = new Histogram(STATEMENT_BOUNDS);
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    RouteMetrics(String method, String route) {
+        this.method = method;
+        this.route = route;
+    }
+
+    /**
+     * Records one completed request.
+     *
+     * @param status       the HTTP status sent
+     * @param elapsedNanos time from receiving the request to finishing the body
+     * @param bytes        size of the response body, or {@code -1} if it had none
+     * @param statementCount JDBC statements executed while serving it
+     */
+    public void record(int status, long elapsedNanos, long bytes, int statementCount) {
+        latencyNanos.record(elapsedNanos);
+        if (bytes >= 0) {
+            responseBytes.record(bytes);
+        }
+        statements.record(statementCount);
+        statusCounts.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    /**
+     * @return the HTTP method, e.g. {@code GET}
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the resource path template, e.g. {@code /departments/{deptNo}}
+     */
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * @return the histogram of request latencies, in nanoseconds
+     */
+    public Histogram getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return the histogram of response body sizes, in bytes
+     */
+    public Histogram getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return the histogram of JDBC statements executed per request
+     */
+    public Histogram getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return a snapshot of request counts keyed by HTTP status, ascending
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> snapshot = new TreeMap<>();
+        statusCounts.forEach((status, count) -> snapshot.put(status, count.sum()));
+        return snapshot;
+    }
+}
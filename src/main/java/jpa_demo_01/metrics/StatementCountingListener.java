@@ -0,0 +1,67 @@
+package jpa_demo_01.metrics;
+
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate session listener counting the JDBC statements run on behalf of
+ * the current HTTP request.
+ *
+ * <p>Installed on every session through {@code hibernate.session.events.auto}
+ * in {@code persistence.xml}. {@link MetricsFilter} calls {@link #begin()}
+ * when a request arrives; the counter is inheritable, so it follows the
+ * request onto the virtual thread that runs its database work. A JDBC batch
+ * counts as one statement, matching the round trips actually made.</p>
+ */
+public class StatementCountingListener implements SessionEventListener {
+
+    private static final InheritableThreadLocal<AtomicInteger> CURRENT =
+            new InheritableThreadLocal<>();
+
+    /**
+     * Starts counting for the request handled by the calling thread.
+     *
+     * @return the counter of the new request
+     */
+    public static AtomicInteger begin() {
+        AtomicInteger counter = new AtomicInteger();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    /**
+     * Returns the number of statements counted so far for the request
+     * handled by the calling thread.
+     *
+     * @return the count, or {@code 0} outside a request
+     */
+    public static int currentCount() {
+        AtomicInteger counter = CURRENT.get();
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Stops counting on the calling thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        increment();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        increment();
+    }
+
+    private static void increment() {
+        AtomicInteger counter = CURRENT.get();
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package jpa_demo_01.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event spanning one resource-managed transaction,
+ * from {@code begin()} to commit or rollback.
+ *
+ * <p>Started right before {@code tx.begin()} and finished with
+ * {@link #finish(boolean)} once the transaction has ended, so the duration
+ * includes the flush and the database commit.</p>
+ */
+@Name("jpa_demo_01.Transaction")
+@Label("Transaction")
+@Category({"Employees API", "Persistence"})
+@Description("A database transaction started by a resource method")
+@StackTrace(false)
+public class TransactionEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Employee Number")
+    @Description("Employee the transaction is about, or 0 for batches")
+    int empNo;
+
+    @Label("Items")
+    @Description("Requests applied in the transaction")
+    int items;
+
+    @Label("Committed")
+    boolean committed;
+
+    @Label("Statements")
+    @Description("JDBC statements executed during the transaction")
+    int statements;
+
+    private transient int statementsAtStart;
+
+    private TransactionEvent(String operation, int empNo, int items) {
+        this.operation = operation;
+        this.empNo = empNo;
+        this.items = items;
+    }
+
+    /**
+     * Creates the event for a transaction and starts timing it.
+     *
+     * @param operation the resource operation, e.g. {@code promoteEmployee}
+     * @param empNo     the employee concerned, or {@code 0} for batches
+     * @param items     the number of requests applied in the transaction
+     * @return the started event
+     */
+    public static TransactionEvent start(String operation, int empNo, int items) {
+        TransactionEvent event = new TransactionEvent(operation, empNo, items);
+        if (event.isEnabled()) {
+            event.statementsAtStart = StatementCountingListener.currentCount();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Stops timing and commits the event if it passes the recording's
+     * threshold.
+     *
+     * @param committed whether the transaction committed (as opposed to
+     *                  being rolled back)
+     */
+    public void finish(boolean committed) {
+        end();
+        if (shouldCommit()) {
+            this.committed = committed;
+            this.statements = StatementCountingListener.currentCount() - statementsAtStart;
+            commit();
+        }
+    }
+}
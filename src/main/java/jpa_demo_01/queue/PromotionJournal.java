@@ -0,0 +1,342 @@
+package jpa_demo_01.queue;
+
+import jpa_demo_01.dto.PromotionRequestDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped journal of accepted promotion requests.
+ *
+ * <p>File layout:</p>
+ * <pre>
+ * header (32 bytes): magic, generation, committed offset, next id
+ * record:            length, CRC32C of payload, payload
+ * payload:           generation, id, empNo, effectiveFrom (epoch day),
+ *                    salary flag, salary, title length, title (UTF-8)
+ * </pre>
+ *
+ * <p>Records are written into the mapping by {@link #append} and made
+ * durable in groups: a background flusher forces everything appended since
+ * its last flush in one {@code msync}, so concurrent appenders share the
+ * cost of a flush ({@link #awaitDurable(Entry)}).</p>
+ *
+ * <p>The committed offset marks how far the records have been applied to
+ * the database ({@link #commit(long)}). At startup, {@link #recover()}
+ * returns the records after it. Once every record has been applied, the
+ * journal starts over at the beginning of the file with a new generation;
+ * older records left behind carry the old generation and are ignored.</p>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+final class PromotionJournal implements AutoCloseable {
+
+    /**
+     * A journalled promotion request.
+     *
+     * @param id        the tracking id
+     * @param request   the promotion request
+     * @param endOffset the offset just past the record
+     */
+    record Entry(long id, PromotionRequestDTO request, long endOffset) {}
+
+    private static final int MAGIC = 0x504A4E31;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int GENERATION_OFFSET = 4;
+    private static final int COMMITTED_OFFSET = 8;
+    private static final int NEXT_ID_OFFSET = 16;
+
+    /**
+     * Length and checksum preceding each payload.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    private int generation;
+    private long nextId;
+    private long committedOffset;
+    private long writeOffset;
+    private long durableOffset;
+
+    /**
+     * Id of the last record forced to disk. Unlike offsets, ids keep growing
+     * when the journal starts over.
+     */
+    private long durableId;
+    private boolean closed;
+
+    /**
+     * Opens the journal file, creating it if needed, and starts the flusher.
+     *
+     * @param path     the journal file
+     * @param capacity the size of the file in bytes
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    PromotionJournal(Path path, int capacity) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(capacity, channel.size()));
+
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(GENERATION_OFFSET, 1);
+            buffer.putLong(COMMITTED_OFFSET, HEADER_SIZE);
+            buffer.putLong(NEXT_ID_OFFSET, 1);
+            buffer.force(0, HEADER_SIZE);
+        }
+        generation = buffer.getInt(GENERATION_OFFSET);
+        committedOffset = buffer.getLong(COMMITTED_OFFSET);
+        nextId = buffer.getLong(NEXT_ID_OFFSET);
+        writeOffset = committedOffset;
+        durableOffset = committedOffset;
+        durableId = nextId - 1;
+
+        flusher = Thread.ofPlatform().daemon().name("promotion-journal-flusher")
+                .start(this::flushLoop);
+    }
+
+    /**
+     * Reads the records that were journalled but not committed before the
+     * last shutdown, and positions the journal after them.
+     *
+     * @return the uncommitted records, oldest first
+     */
+    List<Entry> recover() {
+        lock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            long offset = committedOffset;
+            Entry entry;
+            while ((entry = read(offset)) != null) {
+                entries.add(entry);
+                nextId = Math.max(nextId, entry.id() + 1);
+                offset = entry.endOffset();
+            }
+            writeOffset = offset;
+            durableOffset = offset;
+            durableId = nextId - 1;
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a request to the journal. The record is not durable until
+     * {@link #awaitDurable(Entry)} returns for it.
+     *
+     * @param request the validated promotion request
+     * @return the new entry, or {@code null} if the journal is full
+     */
+    Entry append(PromotionRequestDTO request) {
+        byte[] title = request.getNewTitle().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(4 + 8 + 4 + 8 + 1 + 4 + 4 + title.length);
+
+        lock.lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            long id = nextId;
+            payload.putInt(generation)
+                    .putLong(id)
+                    .putInt(request.getEmpNo())
+                    .putLong(request.getEffectiveFrom().toEpochDay())
+                    .put((byte) (request.getNewSalary() != null ? 1 : 0))
+                    .putInt(request.getNewSalary() != null ? request.getNewSalary() : 0)
+                    .putInt(title.length)
+                    .put(title);
+            byte[] bytes = payload.array();
+
+            long end = writeOffset + RECORD_HEADER_SIZE + bytes.length;
+            // Keep room for a zero length after the record, which ends recovery
+            if (end + 4 > buffer.capacity()) {
+                return null;
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(bytes);
+            int offset = (int) writeOffset;
+            buffer.putInt(offset + 4, (int) crc.getValue());
+            buffer.put(offset + RECORD_HEADER_SIZE, bytes);
+            buffer.putInt((int) end, 0);
+            // Length last: a record is only readable once complete
+            buffer.putInt(offset, bytes.length);
+
+            nextId++;
+            writeOffset = end;
+            appended.signal();
+            return new Entry(id, request, end);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until {@code entry} and everything appended before it have been
+     * forced to disk.
+     *
+     * @param entry an appended entry
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the journal was closed first
+     */
+    void awaitDurable(Entry entry) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durableId < entry.id()) {
+                if (closed && durableOffset == writeOffset) {
+                    throw new IllegalStateException("Promotion journal is closed");
+                }
+                flushed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that every record up to {@code offset} has been applied to the
+     * database. Starts the journal over once nothing is left to apply.
+     *
+     * @param offset the end offset of the last applied record
+     */
+    void commit(long offset) {
+        lock.lock();
+        try {
+            committedOffset = offset;
+            if (committedOffset == writeOffset && durableOffset == writeOffset) {
+                generation++;
+                committedOffset = HEADER_SIZE;
+                writeOffset = HEADER_SIZE;
+                durableOffset = HEADER_SIZE;
+                buffer.putInt(GENERATION_OFFSET, generation);
+            }
+            // Ids of records before the committed offset are never read
+            // again, so the next id has to be kept in the header
+            buffer.putLong(NEXT_ID_OFFSET, nextId);
+            buffer.putLong(COMMITTED_OFFSET, committedOffset);
+            buffer.force(0, HEADER_SIZE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the flusher after a last flush. Appends fail afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signal();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Forces appended records to disk, one group at a time, until closed.
+     */
+    private void flushLoop() {
+        while (true) {
+            long from;
+            long to;
+            long toId;
+            lock.lock();
+            try {
+                while (durableOffset == writeOffset && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (durableOffset == writeOffset) {
+                    return;
+                }
+                from = durableOffset;
+                to = writeOffset;
+                toId = nextId - 1;
+            } finally {
+                lock.unlock();
+            }
+
+            buffer.force((int) from, (int) (to - from));
+
+            lock.lock();
+            try {
+                durableOffset = to;
+                durableId = toId;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Reads the record at {@code offset}.
+     *
+     * @return the record, or {@code null} if there is no valid record of the
+     *         current generation there
+     */
+    private Entry read(long offset) {
+        if (offset + RECORD_HEADER_SIZE > buffer.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt((int) offset);
+        long end = offset + RECORD_HEADER_SIZE + length;
+        if (length <= 0 || end > buffer.capacity()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get((int) offset + RECORD_HEADER_SIZE, bytes);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        if ((int) crc.getValue() != buffer.getInt((int) offset + 4)) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        if (payload.getInt() != generation) {
+            return null;
+        }
+        long id = payload.getLong();
+        PromotionRequestDTO request = new PromotionRequestDTO();
+        request.setEmpNo(payload.getInt());
+        request.setEffectiveFrom(LocalDate.ofEpochDay(payload.getLong()));
+        boolean hasSalary = payload.get() == 1;
+        int salary = payload.getInt();
+        request.setNewSalary(hasSalary ? salary : null);
+        byte[] title = new byte[payload.getInt()];
+        payload.get(title);
+        request.setNewTitle(new String(title, StandardCharsets.UTF_8));
+        return new Entry(id, request, end);
+    }
+}
@@ -0,0 +1,388 @@
+package jpa_demo_01.queue;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.config.ReadRouter;
+import jpa_demo_01.dao.EmployeeDAO;
+import jpa_demo_01.dto.PromotionRequestDTO;
+import jpa_demo_01.dto.PromotionResultDTO;
+import jpa_demo_01.dto.PromotionStatusDTO;
+import jpa_demo_01.metrics.TransactionEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for promotions accepted with
+ * {@code POST /api/employees/promotions/async}.
+ *
+ * <p>{@link #submit(PromotionRequestDTO)} appends the request to a
+ * {@link PromotionJournal} and returns once the record is on disk; the
+ * client gets a tracking id right away. A single worker thread drains the
+ * queue in chunks of up to {@value #CHUNK_SIZE} requests, applying each
+ * chunk in one transaction with {@link EmployeeDAO#promoteEmployees(List)},
+ * so a burst of promotions costs a few statements per chunk instead of a
+ * transaction per request. Only after the transaction commits is the
+ * journal's committed offset advanced.</p>
+ *
+ * <p>A chunk is only committed to the journal once every promotion in it
+ * has a final outcome. While the database is unreachable or aborts the
+ * transaction, the worker backs off and retries the same chunk, up to
+ * {@value #MAX_RETRY_PAUSE_MS} ms apart, so an outage delays queued
+ * promotions but does not drop them. If the worker stops for any reason,
+ * {@link #submit(PromotionRequestDTO)} refuses new promotions.</p>
+ *
+ * <p>At startup the records journalled but not committed before the last
+ * shutdown are queued again. A crash between a commit and the journal
+ * update replays that chunk; its promotions then report HTTP 400, since
+ * the employees already have a promotion on those dates.</p>
+ *
+ * <p>Outcomes are kept in memory for the last {@value #MAX_TRACKED}
+ * promotions and are lost on restart.</p>
+ *
+ * <p>Configured with JVM system properties:</p>
+ * <ul>
+ *     <li>{@code api.journal.path} — the journal file (default
+ *         {@code employees-promotions.journal} in {@code java.io.tmpdir}).</li>
+ *     <li>{@code api.journal.sizeMb} — the journal size in MiB (default
+ *         {@value #DEFAULT_JOURNAL_SIZE_MB}). When it is full, new
+ *         promotions are refused until the worker catches up.</li>
+ * </ul>
+ */
+public final class PromotionQueue {
+
+    /**
+     * Largest number of promotions applied in one transaction.
+     */
+    private static final int CHUNK_SIZE = 500;
+
+    /**
+     * Attempts made at a chunk that conflicts with a concurrent promotion.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final long RETRY_PAUSE_MS = 20;
+
+    /**
+     * Longest pause between attempts while the database is unavailable.
+     */
+    private static final long MAX_RETRY_PAUSE_MS = 5_000;
+
+    /**
+     * How often the idle worker checks whether it should stop.
+     */
+    private static final long POLL_MS = 200;
+
+    private static final int MAX_TRACKED = 100_000;
+
+    private static final int DEFAULT_JOURNAL_SIZE_MB = 64;
+
+    /**
+     * Journalled promotions waiting for the worker, oldest first.
+     */
+    private static final LinkedBlockingDeque<PromotionJournal.Entry> QUEUE =
+            new LinkedBlockingDeque<>();
+
+    /**
+     * Tracking ids of the promotions in {@link #QUEUE} or being applied.
+     */
+    private static final Set<Long> PENDING = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Outcomes of the most recent promotions by tracking id.
+     */
+    private static final Map<Long, PromotionResultDTO> RESULTS = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, PromotionResultDTO> eldest) {
+                    return size() > MAX_TRACKED;
+                }
+            });
+
+    /**
+     * Keeps journal order and queue order the same.
+     */
+    private static final Object APPEND_LOCK = new Object();
+
+    private static volatile PromotionJournal journal;
+
+    private static volatile boolean running;
+
+    private static Thread worker;
+
+    private PromotionQueue() {}
+
+    /**
+     * Opens the journal, queues the promotions left over from the last run
+     * and starts the worker.
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    public static synchronized void start() throws IOException {
+        if (journal != null) {
+            return;
+        }
+        Path path = Path.of(System.getProperty("api.journal.path",
+                Path.of(System.getProperty("java.io.tmpdir"),
+                        "employees-promotions.journal").toString()));
+        int sizeMb = Integer.getInteger("api.journal.sizeMb", DEFAULT_JOURNAL_SIZE_MB);
+
+        PromotionJournal opened = new PromotionJournal(path, sizeMb * 1024 * 1024);
+        for (PromotionJournal.Entry entry : opened.recover()) {
+            PENDING.add(entry.id());
+            QUEUE.addLast(entry);
+        }
+        journal = opened;
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("promotion-queue-worker")
+                .start(() -> drain(opened));
+    }
+
+    /**
+     * Journals a validated promotion for asynchronous processing.
+     *
+     * <p>Blocks until the journal record is on disk, typically sharing the
+     * flush with other concurrent submissions.</p>
+     *
+     * @param request the validated promotion request
+     * @return the pending status with the tracking id, or {@code null} if the
+     *         queue is not running or the journal is full
+     * @throws InterruptedException if interrupted while waiting for the flush
+     */
+    public static PromotionStatusDTO submit(PromotionRequestDTO request)
+            throws InterruptedException {
+        PromotionJournal current = journal;
+        if (current == null || !running) {
+            return null;
+        }
+        PromotionJournal.Entry entry;
+        synchronized (APPEND_LOCK) {
+            entry = current.append(request);
+            if (entry == null) {
+                return null;
+            }
+            PENDING.add(entry.id());
+            QUEUE.addLast(entry);
+        }
+        current.awaitDurable(entry);
+        return new PromotionStatusDTO(entry.id(), PromotionStatusDTO.PENDING, null);
+    }
+
+    /**
+     * Returns the status of a queued promotion.
+     *
+     * @param trackingId the id returned by {@link #submit(PromotionRequestDTO)}
+     * @return the status, or {@code null} if the id is unknown or its outcome
+     *         is no longer kept
+     */
+    public static PromotionStatusDTO getStatus(long trackingId) {
+        // Results are stored before the id leaves PENDING, so a promotion
+        // is always found in one of them
+        if (PENDING.contains(trackingId)) {
+            return new PromotionStatusDTO(trackingId, PromotionStatusDTO.PENDING, null);
+        }
+        PromotionResultDTO result = RESULTS.get(trackingId);
+        return result == null ? null
+                : new PromotionStatusDTO(trackingId, PromotionStatusDTO.DONE, result);
+    }
+
+    /**
+     * Stops the worker after its current chunk and closes the journal.
+     * Promotions still queued stay in the journal for the next start.
+     *
+     * <p>Called at shutdown, before the connection pool is closed.</p>
+     */
+    public static synchronized void shutdown() {
+        if (journal == null) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        journal = null;
+        worker = null;
+        QUEUE.clear();
+        PENDING.clear();
+    }
+
+    /**
+     * Worker loop: applies queued promotions chunk by chunk until stopped.
+     */
+    private static void drain(PromotionJournal journal) {
+        try {
+            drainChunks(journal);
+        } finally {
+            // Whatever stopped the worker, stop accepting promotions that
+            // nobody would apply
+            running = false;
+        }
+    }
+
+    private static void drainChunks(PromotionJournal journal) {
+        while (running) {
+            try {
+                PromotionJournal.Entry first = QUEUE.pollFirst(POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PromotionJournal.Entry> chunk = nextChunk(first);
+                PromotionJournal.Entry last = chunk.get(chunk.size() - 1);
+                journal.awaitDurable(last);
+
+                List<PromotionRequestDTO> requests = new ArrayList<>(chunk.size());
+                for (PromotionJournal.Entry entry : chunk) {
+                    requests.add(entry.request());
+                }
+                List<PromotionResultDTO> results = apply(requests);
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    PromotionResultDTO result = results.get(i);
+                    RESULTS.put(chunk.get(i).id(), result);
+                    PENDING.remove(chunk.get(i).id());
+                    if (result.getStatus() == 200) {
+                        ReadRouter.recordWrite(null, result.getEmpNo());
+                    }
+                }
+                journal.commit(last.endOffset());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Only the journal itself fails here (apply retries or
+                // reports every database error); stop, leaving the
+                // uncommitted records to be replayed on the next start
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the next chunk off the queue, starting with {@code first}.
+     *
+     * <p>A chunk holds at most one promotion per employee, as required by
+     * {@link EmployeeDAO#promoteEmployees(List)}; it ends before the first
+     * repeated employee so that the chunk stays a contiguous run of the
+     * journal.</p>
+     */
+    private static List<PromotionJournal.Entry> nextChunk(PromotionJournal.Entry first) {
+        List<PromotionJournal.Entry> chunk = new ArrayList<>();
+        Set<Integer> empNos = new HashSet<>();
+        chunk.add(first);
+        empNos.add(first.request().getEmpNo());
+        PromotionJournal.Entry next;
+        while (chunk.size() < CHUNK_SIZE
+                && (next = QUEUE.peekFirst()) != null
+                && empNos.add(next.request().getEmpNo())) {
+            chunk.add(QUEUE.pollFirst());
+        }
+        return chunk;
+    }
+
+    /**
+     * Applies a chunk, retrying it on version conflicts and for as long as
+     * the database is unavailable.
+     *
+     * <p>If the chunk fails for another reason, its promotions are applied
+     * one by one so that a single bad request does not fail the others.
+     * Such a request is reported as HTTP 500 and, like the 4xx outcomes,
+     * is final: it would fail the same way on every retry.</p>
+     *
+     * @return one result per request, in request order
+     * @throws InterruptedException if the queue is stopped before the chunk
+     *                              could be applied
+     */
+    private static List<PromotionResultDTO> apply(List<PromotionRequestDTO> requests)
+            throws InterruptedException {
+        long outagePause = RETRY_PAUSE_MS;
+        for (int attempt = 1; ; attempt++) {
+            if (!running) {
+                throw new InterruptedException("Promotion queue stopped");
+            }
+            try {
+                return applyInTransaction(requests);
+            } catch (RuntimeException e) {
+                if (EmployeeDAO.isDatabaseUnavailable(e)) {
+                    // Nothing was written; keep the chunk uncommitted and
+                    // try it again once the database is back
+                    if (outagePause == RETRY_PAUSE_MS) {
+                        e.printStackTrace();
+                    }
+                    sleepWhileRunning(outagePause);
+                    outagePause = Math.min(outagePause * 2, MAX_RETRY_PAUSE_MS);
+                    attempt = 0;
+                    continue;
+                }
+                boolean conflict = EmployeeDAO.isVersionConflict(e);
+                if (conflict && attempt < MAX_ATTEMPTS) {
+                    Thread.sleep(RETRY_PAUSE_MS * attempt);
+                    continue;
+                }
+                if (requests.size() > 1) {
+                    List<PromotionResultDTO> results = new ArrayList<>(requests.size());
+                    for (PromotionRequestDTO request : requests) {
+                        results.addAll(apply(List.of(request)));
+                    }
+                    return results;
+                }
+                int empNo = requests.get(0).getEmpNo();
+                if (conflict) {
+                    return List.of(new PromotionResultDTO(empNo, 409,
+                            "Employee " + empNo + " is being promoted concurrently, try again"));
+                }
+                e.printStackTrace();
+                return List.of(new PromotionResultDTO(empNo, 500,
+                        "Error performing promotion: " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Sleeps for {@code millis}, waking early when the queue is stopped.
+     */
+    private static void sleepWhileRunning(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_MS)));
+        }
+    }
+
+    private static List<PromotionResultDTO> applyInTransaction(List<PromotionRequestDTO> requests) {
+        EntityManager em = JPAUtil.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        TransactionEvent txEvent = TransactionEvent.start("promoteQueued", 0, requests.size());
+        boolean committed = false;
+        try {
+            tx.begin();
+            List<PromotionResultDTO> results = new EmployeeDAO(em).promoteEmployees(requests);
+            tx.commit();
+            committed = true;
+            return results;
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            txEvent.finish(committed);
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package jpa_demo_01.resource;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.dto.CacheRegionStatsDTO;
+import jpa_demo_01.dto.PoolStatsDTO;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * REST resource exposing operational information about the service.
+ *
+ * <p>Base path: {@code /api/admin}</p>
+ *
+ * <p>Endpoints:</p>
+ * <ul>
+ *     <li>{@code GET /api/admin/pool} — live connection pool statistics.</li>
+ *     <li>{@code GET /api/admin/cache} — second-level cache region statistics.</li>
+ * </ul>
+ */
+@Path("/admin")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminResource {
+
+    /**
+     * <pre>
+     * GET /api/admin/pool
+     * </pre>
+     * Returns the current connection pool gauges (active, idle, waiting) and
+     * the connection wait-time distribution since startup.
+     *
+     * @return HTTP 200 (OK) with a {@link PoolStatsDTO}
+     */
+    @GET
+    @Path("/pool")
+    public Response getPoolStats() {
+        return Response.ok(JPAUtil.getPoolStats()).build();
+    }
+
+    /**
+     * <pre>
+     * GET /api/admin/cache
+     * </pre>
+     * Returns hit, miss and put counts and the current size of every
+     * second-level cache region, followed by the query cache totals.
+     *
+     * @return HTTP 200 (OK) with a list of {@link CacheRegionStatsDTO}
+     */
+    @GET
+    @Path("/cache")
+    public Response getCacheStats() {
+        Statistics statistics = JPAUtil.getStatistics();
+        List<CacheRegionStatsDTO> regions = new ArrayList<>();
+
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.add(new CacheRegionStatsDTO(regionName,
+                        region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                        region.getElementCountInMemory()));
+            }
+        }
+
+        regions.add(new CacheRegionStatsDTO("query-cache",
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(), -1));
+
+        return Response.ok(regions).build();
+    }
+}
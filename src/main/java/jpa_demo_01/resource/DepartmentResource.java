@@ -1,14 +1,39 @@
 package jpa_demo_01.resource;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.persistence.EntityManager;
+import jpa_demo_01.cache.DepartmentHeadcountCache;
+import jpa_demo_01.config.BinaryJacksonProvider;
 import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.config.ObjectMapperProvider;
+import jpa_demo_01.config.ReadRouter;
+import jpa_demo_01.config.ResourceExecutor;
+import jpa_demo_01.config.VersionSource;
+import jpa_demo_01.config.Versioned;
 import jpa_demo_01.dao.DepartmentDAO;
 import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.dto.EmployeePageDTO;
+import jpa_demo_01.dto.PageCursor;
 import jpa_demo_01.entity.Department;
+import org.hibernate.ScrollableResults;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 
@@ -22,12 +47,39 @@ import java.util.List;
  *     <li>{@code GET /api/departments} — list all departments.</li>
  *     <li>{@code GET /api/departments/{deptNo}/employees?pageNo=1} —
  *         paginated list of employees in a department.</li>
+ *     <li>{@code GET /api/departments/{deptNo}/employees?after={cursor}} —
+ *         cursor-paginated list of employees in a department.</li>
+ *     <li>{@code GET /api/departments/{deptNo}/export} — every employee in a
+ *         department, streamed as NDJSON or CSV.</li>
  * </ul>
+ *
+ * <p>Database work runs through {@link ResourceExecutor}, off the container
+ * thread; a request that cannot be served in time gets HTTP 503. All
+ * endpoints here are reads and are served from a read replica when one is
+ * configured (see {@link JPAUtil#getReadEntityManager(String, Integer)}).</p>
+ *
+ * <p>Responses other than the export are JSON unless the client asks for
+ * CBOR or Smile in {@code Accept}, see {@link BinaryJacksonProvider}.</p>
  */
 @Path("/departments")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryJacksonProvider.CBOR_QS, BinaryJacksonProvider.SMILE_QS})
 public class DepartmentResource {
 
+    /**
+     * Media type of the newline-delimited JSON export.
+     */
+    private static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Media type of the CSV export.
+     */
+    private static final String CSV = "text/csv";
+
+    /**
+     * Rows pulled from the database per round trip while exporting.
+     */
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     /**
      * Endpoint 1:
      * <pre>
@@ -35,84 +87,361 @@ public class DepartmentResource {
      * </pre>
      * Returns a list of all departments.
      *
-     * @return HTTP 200 (OK) with a list of {@link Department},
-     *         or an empty list if none are found
+     * <p>Responses carry an {@code ETag}; a request with a matching
+     * {@code If-None-Match} gets HTTP 304 without touching the database
+     * once this instance has loaded the list, see
+     * {@link jpa_demo_01.config.ConditionalGetFilter}. The tag is derived
+     * from the departments themselves, so every instance issues the same
+     * one.</p>
+     *
+     * @param clientId      the client identifier header, used to route the read
+     * @param asyncResponse the suspended response, resumed with
+     *                      HTTP 200 (OK) and a list of {@link Department},
+     *                      or an empty list if none are found
      */
     @GET
-    public Response getAllDepartments() {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            DepartmentDAO departmentDAO = new DepartmentDAO(em);
-            List<Department> departments = departmentDAO.findAll();
-            return Response.ok(departments).build();
-        } finally {
-            em.close();
-        }
+    @Versioned(DepartmentsVersion.class)
+    public void getAllDepartments(@HeaderParam(ReadRouter.CLIENT_ID_HEADER) String clientId,
+                                  @Suspended AsyncResponse asyncResponse) {
+        ResourceExecutor.submit(asyncResponse, () -> {
+            EntityManager em = JPAUtil.getReadEntityManager(clientId, null);
+            try {
+                DepartmentDAO departmentDAO = new DepartmentDAO(em);
+                List<Department> departments = departmentDAO.findAll();
+                return Response.ok(departments).build();
+            } finally {
+                em.close();
+            }
+        });
     }
 
     /**
      * Endpoint 3:
      * <pre>
      * GET /api/departments/{deptNo}/employees?pageNo=1
+     * GET /api/departments/{deptNo}/employees?after={cursor}
      * </pre>
      * Returns a page of {@link EmployeeInfoDTO} (20 per page) for a department.
      *
+     * <p>When {@code after} is present the request is served in cursor mode:
+     * the page is located by seeking past the employee number encoded in the
+     * cursor, and the response is an {@link EmployeePageDTO} carrying the
+     * cursor for the next page. An empty {@code after=} starts from the first
+     * page. Without {@code after}, the offset-based {@code pageNo} behaviour
+     * is kept for backward compatibility.</p>
+     *
+     * <p>In {@code pageNo} mode the department total comes from the headcount
+     * cache or a {@code COUNT}, and the page from a separate ordered query
+     * that stops after the page. Supplying {@code withTotal} switches the body to an
+     * {@link EmployeePageDTO} envelope ({@code items}, {@code total},
+     * {@code maxPage}, {@code nextCursor}); {@code withTotal=false} skips the
+     * total entirely for clients that only page forward and back.</p>
+     *
      * @param deptNo the department number (path parameter)
      * @param pageNo the page number to retrieve (query parameter, defaults to 1)
-     * @return HTTP 200 (OK) with a list of employees, or
+     * @param after  opaque cursor returned as {@code nextCursor} by the previous
+     *               page (query parameter, optional)
+     * @param withTotal whether to return a page envelope with the department
+     *                  total (query parameter, optional)
+     * @param clientId the client identifier header, used to route the read
+     * @param asyncResponse the suspended response, resumed with
+     *         HTTP 200 (OK) with a list of employees (or a page envelope in
+     *         cursor mode or when {@code withTotal} is given),
+     *         HTTP 400 (Bad Request) if the page number or cursor is invalid, or
      *         HTTP 404 (Not Found) if the department is invalid or has no employees
      */
     @GET
     @Path("/{deptNo}")
-    public Response getEmployeesByDepartment(
+    public void getEmployeesByDepartment(
             @PathParam("deptNo") String deptNo,
-            @QueryParam("pageNo") @DefaultValue("1") int pageNo
+            @QueryParam("pageNo") @DefaultValue("1") int pageNo,
+            @QueryParam("after") String after,
+            @QueryParam("withTotal") Boolean withTotal,
+            @HeaderParam(ReadRouter.CLIENT_ID_HEADER) String clientId,
+            @Suspended AsyncResponse asyncResponse
     ) {
-        final int PAGE_SIZE = 20;
+        ResourceExecutor.submit(asyncResponse, () -> {
+            final int PAGE_SIZE = 20;
 
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            DepartmentDAO departmentDAO = new DepartmentDAO(em);
+            EntityManager em = JPAUtil.getReadEntityManager(clientId, null);
+            try {
+                DepartmentDAO departmentDAO = new DepartmentDAO(em);
 
-            // 1. pageNo must be >= 1
-            if (pageNo < 1) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("pageNo must be >= 1")
-                        .build();
-            }
+                if (after != null) {
+                    return getEmployeePageAfter(departmentDAO, deptNo, after, PAGE_SIZE);
+                }
 
-            // 2. count employees in dept
-            long totalEmployees = departmentDAO.countEmployeesInDept(deptNo);
+                // 1. pageNo must be >= 1
+                if (pageNo < 1) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("pageNo must be >= 1")
+                            .build();
+                }
 
-            if (totalEmployees == 0) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("No employees found for department " + deptNo)
-                        .build();
+                // 2. fetch the page (and the department total, unless the client
+                //    opted out) in a single round trip
+                boolean countTotal = withTotal == null || withTotal;
+                EmployeePageDTO page = departmentDAO.findEmployeePageByDeptNo(
+                        deptNo, pageNo, PAGE_SIZE, countTotal);
+
+                if (page.getItems().isEmpty()) {
+                    if (pageNo == 1 || (countTotal && page.getTotal() == 0)) {
+                        return Response.status(Response.Status.NOT_FOUND)
+                                .entity("No employees found for department " + deptNo)
+                                .build();
+                    }
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("Requested pageNo " + pageNo +
+                                    " exceeds max available page" +
+                                    (countTotal ? " " + page.getMaxPage() : ""))
+                            .build();
+                }
+
+                // 3. plain list for legacy clients, envelope when withTotal was given
+                if (withTotal == null) {
+                    return Response.ok(page.getItems()).build();
+                }
+                return Response.ok(page).build();
+            } finally {
+                em.close();
             }
+        });
+    }
 
-            // 3. compute max pages
-            long maxPage = (long) Math.ceil(totalEmployees / (double) PAGE_SIZE);
+    /**
+     * Serves one page of a department listing in cursor mode.
+     *
+     * <p>One extra row is fetched beyond {@code pageSize} so the presence of a
+     * following page is known without a separate count.</p>
+     *
+     * @param departmentDAO the DAO bound to the current request's entity manager
+     * @param deptNo        the department number
+     * @param after         the opaque cursor; empty to start from the beginning
+     * @param pageSize      the number of employees per page
+     * @return HTTP 200 (OK) with an {@link EmployeePageDTO},
+     *         HTTP 400 (Bad Request) if the cursor is malformed, or
+     *         HTTP 404 (Not Found) if the first page of the department is empty
+     */
+    private Response getEmployeePageAfter(DepartmentDAO departmentDAO,
+                                          String deptNo, String after,
+                                          int pageSize) {
+        int afterEmpNo;
+        try {
+            afterEmpNo = after.isEmpty() ? 0 : PageCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Invalid cursor: " + after)
+                    .build();
+        }
 
-            if (pageNo > maxPage) {
+        List<EmployeeInfoDTO> employeeDTOs =
+                departmentDAO.findEmployeesByDeptNoAfter(deptNo, afterEmpNo, pageSize + 1);
+
+        if (employeeDTOs.isEmpty() && afterEmpNo == 0) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("No employees found for department " + deptNo)
+                    .build();
+        }
+
+        String nextCursor = null;
+        if (employeeDTOs.size() > pageSize) {
+            employeeDTOs = employeeDTOs.subList(0, pageSize);
+            nextCursor = PageCursor.encode(employeeDTOs.get(pageSize - 1).getEmpNo());
+        }
+
+        return Response.ok(new EmployeePageDTO(employeeDTOs, nextCursor)).build();
+    }
+
+    /**
+     * Endpoint 5:
+     * <pre>
+     * GET /api/departments/{deptNo}/export?format=ndjson
+     * GET /api/departments/{deptNo}/export?format=csv
+     * </pre>
+     * Streams every employee of a department in one response, either as
+     * newline-delimited JSON ({@link EmployeeInfoDTO} per line) or as CSV.
+     *
+     * <p>Rows are read through a forward-only database cursor with a bounded
+     * fetch size and written straight to the response, so memory use stays
+     * flat however large the department is. Without {@code format} the
+     * representation is chosen from the {@code Accept} header, defaulting
+     * to NDJSON.</p>
+     *
+     * <p>The rows are read over the export pool of
+     * {@link JPAUtil#getExportEntityManager()}, on the first read replica
+     * when there are replicas, since the connection is held until the
+     * client has read the whole stream.</p>
+     *
+     * @param deptNo  the department number (path parameter)
+     * @param format  {@code ndjson} or {@code csv} (query parameter, optional)
+     * @param headers the request headers, used for content negotiation
+     * @param clientId the client identifier header, used to route the
+     *                 headcount check
+     * @param asyncResponse the suspended response, resumed with
+     *         HTTP 200 (OK) with the streamed employees,
+     *         HTTP 400 (Bad Request) if the format is unknown, or
+     *         HTTP 404 (Not Found) if the department has no employees
+     */
+    @GET
+    @Path("/{deptNo}/export")
+    @Produces({NDJSON, CSV})
+    public void exportEmployeesByDepartment(
+            @PathParam("deptNo") String deptNo,
+            @QueryParam("format") String format,
+            @Context HttpHeaders headers,
+            @HeaderParam(ReadRouter.CLIENT_ID_HEADER) String clientId,
+            @Suspended AsyncResponse asyncResponse
+    ) {
+        ResourceExecutor.submit(asyncResponse, () -> {
+            boolean csv;
+            if (format == null) {
+                csv = headers.getAcceptableMediaTypes().stream()
+                        .findFirst()
+                        .map(type -> type.isCompatible(MediaType.valueOf(CSV))
+                                && !type.isWildcardType())
+                        .orElse(false);
+            } else if (format.equalsIgnoreCase("csv")) {
+                csv = true;
+            } else if (format.equalsIgnoreCase("ndjson")) {
+                csv = false;
+            } else {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("Requested pageNo " + pageNo +
-                                " exceeds max available page " + maxPage)
+                        .type(MediaType.TEXT_PLAIN_TYPE)
+                        .entity("format must be ndjson or csv")
                         .build();
             }
 
-            // 4. return results normally
-            List<EmployeeInfoDTO> employeeDTOs =
-                    departmentDAO.findEmployeesByDeptNo(deptNo, pageNo, PAGE_SIZE);
-
-            if (employeeDTOs.isEmpty()) {
+            if (countEmployees(deptNo, clientId) == 0) {
                 return Response.status(Response.Status.NOT_FOUND)
-                        .entity("Department " + deptNo + " not found.")
+                        .type(MediaType.TEXT_PLAIN_TYPE)
+                        .entity("No employees found for department " + deptNo)
                         .build();
             }
 
-            return Response.ok(employeeDTOs).build();
+            // written after this work returns, so it needs its own permit
+            StreamingOutput body = ResourceExecutor.withPermit(output -> {
+                EntityManager em = JPAUtil.getExportEntityManager();
+                try (ScrollableResults<EmployeeInfoDTO> rows = new DepartmentDAO(em)
+                        .scrollEmployeesByDeptNo(deptNo, EXPORT_FETCH_SIZE)) {
+                    if (csv) {
+                        writeCsv(rows, output);
+                    } else {
+                        writeNdjson(rows, output);
+                    }
+                } finally {
+                    em.close();
+                }
+            });
+
+            return Response.ok(body, csv ? CSV : NDJSON)
+                    .header("Content-Disposition",
+                            "attachment; filename=\"" + deptNo + (csv ? ".csv" : ".ndjson") + "\"")
+                    .build();
+        });
+    }
+
+    /**
+     * Returns the headcount of a department, from the headcount cache when
+     * possible.
+     *
+     * @param deptNo   the department number
+     * @param clientId the client identifier header, used to route the read
+     * @return the number of {@code dept_emp} rows for that department
+     */
+    private long countEmployees(String deptNo, String clientId) {
+        Long cached = DepartmentHeadcountCache.get(deptNo);
+        if (cached != null) {
+            return cached;
+        }
+        EntityManager em = JPAUtil.getReadEntityManager(clientId, null);
+        try {
+            return new DepartmentDAO(em).countEmployeesInDept(deptNo);
         } finally {
             em.close();
         }
     }
+
+    /**
+     * Writes each row as one JSON object per line.
+     *
+     * @param rows   the open cursor to drain
+     * @param output the response stream
+     * @throws IOException if writing to the client fails
+     */
+    private void writeNdjson(ScrollableResults<EmployeeInfoDTO> rows,
+                             OutputStream output) throws IOException {
+        ObjectWriter writer = ObjectMapperProvider.getMapper()
+                .writerFor(EmployeeInfoDTO.class)
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = writer.createGenerator(output)) {
+            while (rows.next()) {
+                writer.writeValue(generator, rows.get());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes a header line followed by one CSV line per row.
+     *
+     * @param rows   the open cursor to drain
+     * @param output the response stream
+     * @throws IOException if writing to the client fails
+     */
+    private void writeCsv(ScrollableResults<EmployeeInfoDTO> rows,
+                          OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write("empNo,firstName,lastName,hireDate\n");
+        while (rows.next()) {
+            EmployeeInfoDTO dto = rows.get();
+            writer.write(Integer.toString(dto.getEmpNo()));
+            writer.write(',');
+            writer.write(csvField(dto.getFirstName()));
+            writer.write(',');
+            writer.write(csvField(dto.getLastName()));
+            writer.write(',');
+            writer.write(dto.getHireDate() == null ? "" : dto.getHireDate().toString());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Quotes a CSV field if it contains a separator, quote or line break.
+     *
+     * @param value the raw field value; may be {@code null}
+     * @return the field as it should appear in the CSV line
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Version of the department list, for {@link #getAllDepartments}.
+     */
+    public static class DepartmentsVersion implements VersionSource {
+
+        @Override
+        public String currentVersion(ContainerRequestContext request) {
+            String version = DepartmentDAO.getDepartmentsVersion();
+            return version == null ? null : "d" + version;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public String versionOf(ContainerRequestContext request, Object entity) {
+            return entity instanceof List<?> departments
+                    ? "d" + DepartmentDAO.versionOf((List<Department>) departments) : null;
+        }
+    }
 }
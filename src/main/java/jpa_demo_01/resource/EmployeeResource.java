@@ -1,18 +1,44 @@
 package jpa_demo_01.resource;
 
-import jakarta.persistence.TypedQuery;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
 
+import jpa_demo_01.cache.EmployeeNameIndex;
+import jpa_demo_01.cache.EmployeeVersionCache;
+import jpa_demo_01.config.BinaryJacksonProvider;
+import jpa_demo_01.config.IdempotencyStore;
 import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.config.ReadRouter;
+import jpa_demo_01.config.ResourceExecutor;
+import jpa_demo_01.config.VersionSource;
+import jpa_demo_01.config.Versioned;
 import jpa_demo_01.dao.EmployeeDAO;
+import jpa_demo_01.dao.EmployeeFetchProfile;
+import jpa_demo_01.dao.PromotionOutcome;
+import jpa_demo_01.dto.EmployeeBatchDTO;
+import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.dto.EmployeeView;
 import jpa_demo_01.dto.PromotionRequestDTO;
+import jpa_demo_01.dto.PromotionResultDTO;
+import jpa_demo_01.dto.PromotionStatusDTO;
 import jpa_demo_01.entity.Employee;
+import jpa_demo_01.metrics.TransactionEvent;
+import jpa_demo_01.queue.PromotionQueue;
 
-import java.time.LocalDate;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * REST resource providing endpoints related to employees.
@@ -22,13 +48,89 @@ import java.time.LocalDate;
  * <p>Endpoints:</p>
  * <ul>
  *     <li>{@code GET /api/employees/{empNo}} — fetch an employee by employee number.</li>
+ *     <li>{@code GET /api/employees?ids=...} and
+ *         {@code POST /api/employees/lookup} — fetch many employees at once.</li>
+ *     <li>{@code GET /api/employees/search?name=...} — find employees by name.</li>
  *     <li>{@code POST /api/employees/promotions} — process an employee promotion.</li>
+ *     <li>{@code POST /api/employees/promotions/batch} — process many promotions.</li>
+ *     <li>{@code POST /api/employees/promotions/async} — queue a promotion.</li>
+ *     <li>{@code GET /api/employees/promotions/async/{trackingId}} — outcome
+ *         of a queued promotion.</li>
  * </ul>
+ *
+ * <p>Database work runs through {@link ResourceExecutor}, off the container
+ * thread; a request that cannot be served in time gets HTTP 503. Lookups
+ * are served from a read replica when one is configured; promotions always
+ * run on the primary, and are visible to the promoting client (and to
+ * lookups of the promoted employee) right away, see {@link ReadRouter}.</p>
+ *
+ * <p>Responses are JSON unless the client asks for CBOR or Smile in
+ * {@code Accept}, see {@link BinaryJacksonProvider}.</p>
+ *
+ * <p>Promotions use optimistic locking (see {@link EmployeeDAO}). A
+ * transaction that loses a race against a concurrent promotion of the same
+ * employee is rolled back and retried from scratch, up to
+ * {@value #MAX_PROMOTION_ATTEMPTS} attempts, after a short random pause.</p>
  */
 @Path("/employees")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryJacksonProvider.CBOR_QS, BinaryJacksonProvider.SMILE_QS})
 public class EmployeeResource {
 
+    /**
+     * Largest number of promotions accepted by one batch request: a few
+     * chunks, so that the batch finishes well within the request deadline.
+     * An update is never cut off once it has started, so a larger batch
+     * would hold its permit and the client connection for as long as it
+     * takes. Larger sets go through the promotion queue (endpoint 7).
+     */
+    private static final int MAX_BATCH_SIZE = 2_000;
+
+    /**
+     * Number of promotions applied per transaction in a batch request.
+     */
+    private static final int BATCH_CHUNK_SIZE = 500;
+
+    /**
+     * Attempts made at a promotion transaction before a conflict with a
+     * concurrent promotion is reported to the client.
+     */
+    private static final int MAX_PROMOTION_ATTEMPTS = 3;
+
+    /**
+     * Upper bound of the random pause before the first retry, in
+     * milliseconds; doubled for each further retry.
+     */
+    private static final int RETRY_BACKOFF_MS = 10;
+
+    /**
+     * Largest number of employees fetched by one multi-get request.
+     */
+    private static final int MAX_LOOKUP_SIZE = 100;
+
+    /**
+     * Largest number of results returned by a name search.
+     */
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    /**
+     * Employee properties selectable with {@code fields=} that need no
+     * history collection.
+     */
+    private static final Set<String> SCALAR_FIELDS = Set.of(
+            "empNo", "birthDate", "firstName", "lastName", "gender", "hireDate");
+
+    /**
+     * Employee history collections selectable with {@code fields=} or
+     * {@code include=}.
+     */
+    private static final Set<String> ASSOCIATIONS = Set.of(
+            "deptEmpList", "deptManagerList", "salaries", "titles");
+
+    /**
+     * Derived property holding the title of the current {@code titles} row.
+     */
+    private static final String CURRENT_TITLE = "currentTitle";
+
     /**
      * Endpoint 2:
      * <pre>
@@ -37,28 +139,331 @@ public class EmployeeResource {
      * Returns an employee with all relationships such as dept_emp, dept_manager,
      * salaries, and titles.
      *
-     * @param empNo the employee number to look up (path parameter)
-     * @return HTTP 200 (OK) with the {@link Employee} if found,
-     *         or HTTP 404 (Not Found) if the employee does not exist
+     * <p>The optional {@code profile} query parameter narrows what is loaded:
+     * {@code summary} (employee row only), {@code history} (salaries and
+     * titles) or {@code full} (everything, the default). Collections outside
+     * the profile are returned as {@code null}.</p>
+     *
+     * <p>Alternatively, {@code fields} and {@code include} select individual
+     * properties, and the profile is then ignored. {@code fields} is a
+     * comma-separated list of the properties to return ({@code empNo},
+     * {@code birthDate}, {@code firstName}, {@code lastName},
+     * {@code gender}, {@code hireDate}, {@code currentTitle} or a history
+     * collection), defaulting to the columns of the employee row;
+     * {@code include} adds history collections ({@code deptEmpList},
+     * {@code deptManagerList}, {@code salaries}, {@code titles}).
+     * {@code empNo} is always returned. Only the selected collections are
+     * loaded, one query each after the employee, and properties not
+     * selected are left out of the response entirely: e.g.
+     * {@code fields=firstName,lastName,currentTitle} loads the employee
+     * with its titles and returns four properties.</p>
+     *
+     * <p>Responses carry an {@code ETag} built from the employee's version,
+     * which every promotion increments; a request with a matching
+     * {@code If-None-Match} gets HTTP 304 without loading anything when the
+     * employee's version is in the {@link EmployeeVersionCache}, see
+     * {@link jpa_demo_01.config.ConditionalGetFilter}.</p>
+     *
+     * @param empNo   the employee number to look up (path parameter)
+     * @param profile the fetch profile name (query parameter, defaults to full)
+     * @param fields  the comma-separated properties to return (query
+     *                parameter, optional)
+     * @param include the comma-separated collections to add (query
+     *                parameter, optional)
+     * @param clientId the client identifier header, used to route the read
+     * @param asyncResponse the suspended response, resumed with
+     *         HTTP 200 (OK) with the {@link Employee} if found,
+     *         HTTP 400 (Bad Request) if the profile or a field is unknown, or
+     *         HTTP 404 (Not Found) if the employee does not exist
      */
     @GET
     @Path("/{empNo}")
-    public Response getEmployeeByNumber(@PathParam("empNo") int empNo) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            EmployeeDAO employeeDAO = new EmployeeDAO(em);
-            Employee employee = employeeDAO.findEmployee(empNo);
+    @Versioned(EmployeeVersion.class)
+    public void getEmployeeByNumber(@PathParam("empNo") int empNo,
+                                    @QueryParam("profile") @DefaultValue("full")
+                                    String profile,
+                                    @QueryParam("fields") String fields,
+                                    @QueryParam("include") String include,
+                                    @HeaderParam(ReadRouter.CLIENT_ID_HEADER)
+                                    String clientId,
+                                    @Suspended AsyncResponse asyncResponse) {
+        if (fields != null || include != null) {
+            getEmployeeFields(empNo, fields, include, clientId, asyncResponse);
+            return;
+        }
+        ResourceExecutor.submit(asyncResponse, () -> {
+            EmployeeFetchProfile fetchProfile = EmployeeFetchProfile.fromName(profile);
+            if (fetchProfile == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("profile must be one of summary, history, full")
+                        .build();
+            }
 
-            if (employee == null) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("Employee with number " + empNo + " not found")
+            EntityManager em = JPAUtil.getReadEntityManager(clientId, empNo);
+            try {
+                EmployeeDAO employeeDAO = new EmployeeDAO(em);
+                Employee employee = employeeDAO.findEmployee(empNo, fetchProfile);
+
+                if (employee == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Employee with number " + empNo + " not found")
+                            .build();
+                }
+
+                return Response.ok(employee).build();
+            } finally {
+                em.close();   //
+            }
+        });
+    }
+
+    /**
+     * Serves {@link #getEmployeeByNumber} for a sparse fieldset request.
+     */
+    private void getEmployeeFields(int empNo, String fields, String include, String clientId,
+                                   AsyncResponse asyncResponse) {
+        ResourceExecutor.submit(asyncResponse, () -> {
+            Set<String> selected = new LinkedHashSet<>();
+            selected.add("empNo");
+            if (fields == null) {
+                selected.addAll(SCALAR_FIELDS);
+            } else {
+                String unknown = addFields(selected, fields, true);
+                if (unknown != null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("Unknown field: " + unknown)
+                            .build();
+                }
+            }
+            if (include != null) {
+                String unknown = addFields(selected, include, false);
+                if (unknown != null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("include must list collections of " + ASSOCIATIONS
+                                    + ", got: " + unknown)
+                            .build();
+                }
+            }
+
+            Set<String> associations = new HashSet<>(selected);
+            associations.retainAll(ASSOCIATIONS);
+            if (selected.contains(CURRENT_TITLE)) {
+                associations.add("titles");
+            }
+
+            EntityManager em = JPAUtil.getReadEntityManager(clientId, empNo);
+            try {
+                Employee employee = new EmployeeDAO(em).findEmployee(empNo, associations);
+
+                if (employee == null) {
+                    return Response.status(Response.Status.NOT_FOUND)
+                            .entity("Employee with number " + empNo + " not found")
+                            .build();
+                }
+
+                return Response.ok(new EmployeeView(employee, selected)).build();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Endpoint 9:
+     * <pre>
+     * GET /api/employees?ids=10001,10002,10003
+     * </pre>
+     * Returns many employees at once, as an {@link EmployeeBatchDTO}: the
+     * employees found, in the order requested, and the numbers that matched
+     * no employee. Repeated numbers are returned once.
+     *
+     * <p>However many employees are requested, they are loaded with a fixed
+     * number of {@code IN}-list queries, one per history collection of the
+     * {@code profile} (see {@link #getEmployeeByNumber}) plus one for the
+     * employees, instead of a request and several queries per employee.</p>
+     *
+     * @param ids      the comma-separated employee numbers, at most
+     *                 {@value #MAX_LOOKUP_SIZE} (query parameter)
+     * @param profile  the fetch profile name (query parameter, defaults to full)
+     * @param clientId the client identifier header, used to route the read
+     * @param asyncResponse the suspended response, resumed with
+     *         HTTP 200 (OK) with an {@link EmployeeBatchDTO}, or
+     *         HTTP 400 (Bad Request) if the ids are missing, malformed or too
+     *         many, or the profile is unknown
+     */
+    @GET
+    public void getEmployeesByNumbers(@QueryParam("ids") String ids,
+                                      @QueryParam("profile") @DefaultValue("full") String profile,
+                                      @HeaderParam(ReadRouter.CLIENT_ID_HEADER) String clientId,
+                                      @Suspended AsyncResponse asyncResponse) {
+        List<Integer> empNos = new ArrayList<>();
+        if (ids != null) {
+            for (String id : ids.split(",")) {
+                if (id.isBlank()) {
+                    continue;
+                }
+                try {
+                    empNos.add(Integer.parseInt(id.trim()));
+                } catch (NumberFormatException e) {
+                    asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                            .entity("ids must be comma-separated employee numbers")
+                            .build());
+                    return;
+                }
+            }
+        }
+        lookup(empNos, profile, clientId, asyncResponse);
+    }
+
+    /**
+     * Endpoint 10:
+     * <pre>
+     * POST /api/employees/lookup
+     * </pre>
+     * Same as {@link #getEmployeesByNumbers}, for lists too long for a URL:
+     * consumes a JSON array of employee numbers, e.g.
+     * {@code [10001, 10002, 10003]}.
+     *
+     * @param empNos   the employee numbers, at most {@value #MAX_LOOKUP_SIZE}
+     * @param profile  the fetch profile name (query parameter, defaults to full)
+     * @param clientId the client identifier header, used to route the read
+     * @param asyncResponse the suspended response, resumed with
+     *         HTTP 200 (OK) with an {@link EmployeeBatchDTO}, or
+     *         HTTP 400 (Bad Request) if the body is missing, empty, too large
+     *         or contains {@code null}, or the profile is unknown
+     */
+    @POST
+    @Path("/lookup")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void lookupEmployees(List<Integer> empNos,
+                                @QueryParam("profile") @DefaultValue("full") String profile,
+                                @HeaderParam(ReadRouter.CLIENT_ID_HEADER) String clientId,
+                                @Suspended AsyncResponse asyncResponse) {
+        if (empNos != null && empNos.contains(null)) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Employee numbers must not be null")
+                    .build());
+            return;
+        }
+        lookup(empNos == null ? List.of() : empNos, profile, clientId, asyncResponse);
+    }
+
+    /**
+     * Serves the multi-get endpoints.
+     */
+    private void lookup(List<Integer> requested, String profile, String clientId,
+                        AsyncResponse asyncResponse) {
+        ResourceExecutor.submit(asyncResponse, () -> {
+            EmployeeFetchProfile fetchProfile = EmployeeFetchProfile.fromName(profile);
+            if (fetchProfile == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("profile must be one of summary, history, full")
                         .build();
             }
+            List<Integer> empNos = new ArrayList<>(new LinkedHashSet<>(requested));
+            if (empNos.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("At least one employee number is required")
+                        .build();
+            }
+            if (empNos.size() > MAX_LOOKUP_SIZE) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("At most " + MAX_LOOKUP_SIZE + " employees per request")
+                        .build();
+            }
+
+            // Read from the primary if any of the employees was just promoted
+            Integer routedEmpNo = null;
+            for (Integer empNo : empNos) {
+                if (ReadRouter.mustReadFromPrimary(null, empNo)) {
+                    routedEmpNo = empNo;
+                    break;
+                }
+            }
+
+            EntityManager em = JPAUtil.getReadEntityManager(clientId, routedEmpNo);
+            try {
+                List<Employee> loaded = new EmployeeDAO(em).findEmployees(empNos, fetchProfile);
+
+                List<Employee> employees = new ArrayList<>(empNos.size());
+                List<Integer> missing = new ArrayList<>();
+                for (int i = 0; i < empNos.size(); i++) {
+                    if (loaded.get(i) != null) {
+                        employees.add(loaded.get(i));
+                    } else {
+                        missing.add(empNos.get(i));
+                    }
+                }
+                return Response.ok(new EmployeeBatchDTO(employees, missing)).build();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Endpoint 11:
+     * <pre>
+     * GET /api/employees/search?name=geo&amp;limit=20
+     * </pre>
+     * Finds employees whose first or last name starts with {@code name},
+     * ignoring case; {@code name=georgi fac} matches first name and last
+     * name separately. Results are ordered by the matching name, then by
+     * employee number.
+     *
+     * <p>Served from the in-memory {@link EmployeeNameIndex} on the calling
+     * thread, without touching the database.</p>
+     *
+     * @param name  the name prefix (query parameter)
+     * @param limit the largest number of results (query parameter, defaults
+     *              to 20, at most {@value #MAX_SEARCH_LIMIT})
+     * @return HTTP 200 (OK) with a list of {@link EmployeeInfoDTO},
+     *         HTTP 400 (Bad Request) if the name is blank or the limit is out
+     *         of range, or
+     *         HTTP 503 (Service Unavailable) if the index is not built
+     */
+    @GET
+    @Path("/search")
+    public Response searchEmployees(@QueryParam("name") String name,
+                                    @QueryParam("limit") @DefaultValue("20") int limit) {
+        if (name == null || name.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("name is required")
+                    .build();
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and " + MAX_SEARCH_LIMIT)
+                    .build();
+        }
+        List<EmployeeInfoDTO> employees = EmployeeNameIndex.search(name, limit);
+        if (employees == null) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity("Name search is not available")
+                    .build();
+        }
+        return Response.ok(employees).build();
+    }
 
-            return Response.ok(employee).build();
-        } finally {
-            em.close();   //
+    /**
+     * Adds the names in a comma-separated parameter to {@code selected}.
+     *
+     * @param scalars whether non-collection properties are allowed
+     * @return the first name that is not allowed, or {@code null}
+     */
+    private static String addFields(Set<String> selected, String list, boolean scalars) {
+        for (String name : list.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            boolean scalar = SCALAR_FIELDS.contains(name) || name.equals(CURRENT_TITLE);
+            if (!ASSOCIATIONS.contains(name) && !(scalars && scalar)) {
+                return name;
+            }
+            selected.add(name);
         }
+        return null;
     }
 
     /**
@@ -78,92 +483,449 @@ public class EmployeeResource {
      * }
      * }</pre>
      *
+     * <p>A request sent with an {@code Idempotency-Key} header is applied at
+     * most once: retries with the same key get the original response back,
+     * see {@link IdempotencyStore}.</p>
+     *
      * @param request the promotion request payload containing employee number,
      *                new title, optional new salary, and effective date
-     * @return HTTP 200 (OK) with a success message if promotion is applied,
-     *         HTTP 400 (Bad Request) if validation fails,
-     *         HTTP 404 (Not Found) if employee does not exist, or
+     * @param clientId the client identifier header; the client reads its own
+     *                 writes for a short while after a successful promotion
+     * @param idempotencyKey the optional idempotency key header
+     * @param asyncResponse the suspended response, resumed with
+     *         HTTP 200 (OK) with a success message if promotion is applied,
+     *         HTTP 400 (Bad Request) if validation fails, the employee already
+     *         has a promotion on that date, or a new manager has no current
+     *         department,
+     *         HTTP 404 (Not Found) if employee does not exist,
+     *         HTTP 409 (Conflict) if concurrent promotions of the same
+     *         employee kept winning over this one, or a request with the
+     *         same idempotency key is still running,
+     *         HTTP 422 (Unprocessable Entity) if the idempotency key was used
+     *         for a different request, or
      *         HTTP 500 (Internal Server Error) if an unexpected error occurs
      */
     @POST
     @Path("/promotions")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response promoteEmployee(PromotionRequestDTO request) {
+    public void promoteEmployee(PromotionRequestDTO request,
+                                @HeaderParam(ReadRouter.CLIENT_ID_HEADER) String clientId,
+                                @HeaderParam(IdempotencyStore.KEY_HEADER) String idempotencyKey,
+                                @Suspended AsyncResponse asyncResponse) {
+        // A retry of a completed request is answered without queueing for a
+        // database connection
+        String fingerprint = fingerprint(request);
+        Response replay = IdempotencyStore.replay(idempotencyKey, fingerprint);
+        if (replay != null) {
+            asyncResponse.resume(replay);
+            return;
+        }
 
-        // Basic validation (HTTP concern)
-        if (request == null ||
-                request.getEmpNo() <= 0 ||
-                request.getNewTitle() == null || request.getNewTitle().isBlank() ||
-                request.getEffectiveFrom() == null) {
+        ResourceExecutor.submitUpdate(asyncResponse, () -> IdempotencyStore.execute(
+                idempotencyKey, fingerprint, () -> promote(request, clientId)));
+    }
 
+    /**
+     * Applies a single promotion in its own transaction, retrying when it
+     * conflicts with a concurrent promotion of the same employee.
+     *
+     * @param request  the promotion request
+     * @param clientId the client making the promotion; may be {@code null}
+     * @return the HTTP response described on {@link #promoteEmployee}
+     */
+    private Response promote(PromotionRequestDTO request, String clientId) {
+        // Basic validation (HTTP concern)
+        if (!isValid(request)) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("empNo, newTitle and effectiveFrom are required")
                     .build();
         }
 
-        EntityManager em = JPAUtil.getEntityManager();
-        EntityTransaction tx = em.getTransaction();
+        for (int attempt = 1; ; attempt++) {
+            EntityManager em = JPAUtil.getEntityManager();
+            EntityTransaction tx = em.getTransaction();
 
-        LocalDate effectiveFrom = request.getEffectiveFrom();
+            TransactionEvent txEvent = TransactionEvent.start(
+                    "promoteEmployee", request.getEmpNo(), 1);
+            boolean committed = false;
+            try {
+                tx.begin();
 
-        // Prevent same-date promotions
-        TypedQuery<Long> duplicateQuery = em.createQuery(
-                "SELECT COUNT(t) FROM Titles t " +
-                        "WHERE t.titleId.empNo = :empNo AND t.titleId.fromDate = :fromDate",
-                Long.class
-        );
-        duplicateQuery.setParameter("empNo", request.getEmpNo());
-        duplicateQuery.setParameter("fromDate", effectiveFrom);
+                // 1. Check and apply in one go; duplicate dates, unknown
+                //    employees and managers without a department are
+                //    detected by the DAO's single lookup
+                PromotionOutcome outcome = new EmployeeDAO(em).promoteEmployee(
+                        request.getEmpNo(),
+                        request.getNewTitle(),
+                        request.getNewSalary(),
+                        request.getEffectiveFrom()
+                );
 
-        if (duplicateQuery.getSingleResult() > 0) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("Employee already has a promotion effective on " + effectiveFrom)
-                    .build();
-        }
+                // 2. Nothing was written unless promoted
+                if (outcome != PromotionOutcome.PROMOTED) {
+                    tx.rollback();
+                    return Response.status(outcome.getStatus())
+                            .entity(rejectionMessage(outcome, request))
+                            .build();
+                }
 
+                tx.commit();
+                committed = true;
+                ReadRouter.recordWrite(clientId, request.getEmpNo());
 
-        try {
-            tx.begin();
+                // 3. Build HTTP response
+                return Response.ok("Employee " + request.getEmpNo() +
+                        " promoted to '" + request.getNewTitle() + "'" +
+                        (request.getNewSalary() != null
+                                ? " with new salary " + request.getNewSalary()
+                                : "")
+                ).build();
 
-            EmployeeDAO employeeDAO = new EmployeeDAO(em);
+            } catch (Exception e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                if (EmployeeDAO.isVersionConflict(e)) {
+                    // Lost a race with a concurrent promotion of the same
+                    // employee; start over with fresh data
+                    if (attempt < MAX_PROMOTION_ATTEMPTS && backOff(attempt)) {
+                        continue;
+                    }
+                    return Response.status(Response.Status.CONFLICT)
+                            .entity("Employee " + request.getEmpNo() +
+                                    " is being promoted concurrently, try again")
+                            .build();
+                }
+                e.printStackTrace();
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("Error performing promotion: " + e.getMessage())
+                        .build();
+            } finally {
+                txEvent.finish(committed);
+                em.close();
+            }
+        }
+    }
 
-            // 1. Ensure employee exists
-            Employee employee = employeeDAO.findEmployee(request.getEmpNo());
-            if (employee == null) {
-                tx.rollback();
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity("Employee " + request.getEmpNo() + " not found")
+    /**
+     * Endpoint 6:
+     * <pre>
+     * POST /api/employees/promotions/batch
+     * </pre>
+     * Consumes a JSON array of promotions (same shape as endpoint 4) and
+     * applies them in chunks of {@value #BATCH_CHUNK_SIZE}, one transaction
+     * per chunk.
+     *
+     * <p>Each chunk preloads the current rows of all its employees in a few
+     * set-based queries and writes with JDBC batching, so a large review
+     * cycle costs a small number of round trips per chunk rather than
+     * several per employee. A failure while committing a chunk only affects
+     * the items of that chunk.</p>
+     *
+     * <p>A batch is limited to {@value #MAX_BATCH_SIZE} promotions, so that
+     * it completes within the request deadline; larger review cycles are
+     * submitted through endpoint 7, which returns HTTP 202 at once.</p>
+     *
+     * @param requests the promotion requests, at most {@value #MAX_BATCH_SIZE}
+     * @param clientId the client identifier header; the client reads its own
+     *                 writes for a short while after the batch
+     * @param asyncResponse the suspended response, resumed with
+     *         HTTP 200 (OK) with one {@link PromotionResultDTO} per request,
+     *         in request order, or
+     *         HTTP 400 (Bad Request) if the body is missing, empty or too large
+     */
+    @POST
+    @Path("/promotions/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void promoteEmployees(List<PromotionRequestDTO> requests,
+                                 @HeaderParam(ReadRouter.CLIENT_ID_HEADER) String clientId,
+                                 @Suspended AsyncResponse asyncResponse) {
+        ResourceExecutor.submitUpdate(asyncResponse, () -> {
+            if (requests == null || requests.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("At least one promotion is required")
                         .build();
             }
+            if (requests.size() > MAX_BATCH_SIZE) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("At most " + MAX_BATCH_SIZE + " promotions per batch; " +
+                                "submit larger sets to /employees/promotions/async")
+                        .build();
+            }
+
+            PromotionResultDTO[] results = new PromotionResultDTO[requests.size()];
+            List<PromotionRequestDTO> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+            List<Integer> chunkIndexes = new ArrayList<>(BATCH_CHUNK_SIZE);
+            Set<Integer> seenEmpNos = new HashSet<>();
+
+            for (int i = 0; i < requests.size(); i++) {
+                PromotionRequestDTO request = requests.get(i);
 
-            // 2. Delegate promotion logic to DAO
-            employeeDAO.promoteEmployee(
-                    employee,
-                    request.getNewTitle(),
-                    request.getNewSalary(),
-                    request.getEffectiveFrom()
-            );
+                // Basic validation, and at most one promotion per employee per batch
+                if (!isValid(request)) {
+                    results[i] = new PromotionResultDTO(request == null ? 0 : request.getEmpNo(),
+                            400, "empNo, newTitle and effectiveFrom are required");
+                    continue;
+                }
+                if (!seenEmpNos.add(request.getEmpNo())) {
+                    results[i] = new PromotionResultDTO(request.getEmpNo(), 400,
+                            "Employee " + request.getEmpNo() + " appears more than once in the batch");
+                    continue;
+                }
+
+                chunk.add(request);
+                chunkIndexes.add(i);
+                if (chunk.size() == BATCH_CHUNK_SIZE) {
+                    promoteChunk(chunk, chunkIndexes, results, clientId);
+                    chunk.clear();
+                    chunkIndexes.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                promoteChunk(chunk, chunkIndexes, results, clientId);
+            }
 
-            tx.commit();
+            return Response.ok(Arrays.asList(results)).build();
+        });
+    }
 
-            // 3. Build HTTP response
-            return Response.ok("Employee " + request.getEmpNo() +
-                    " promoted to '" + request.getNewTitle() + "'" +
-                    (request.getNewSalary() != null
-                            ? " with new salary " + request.getNewSalary()
-                            : "")
-            ).build();
+    /**
+     * Endpoint 7:
+     * <pre>
+     * POST /api/employees/promotions/async
+     * </pre>
+     * Accepts a promotion (same shape as endpoint 4) for asynchronous
+     * processing by the {@link PromotionQueue}.
+     *
+     * <p>The request is validated and written to the promotion journal; the
+     * response is sent once the journal record is on disk, without touching
+     * the database. The promotion is applied shortly afterwards, together
+     * with other queued promotions, and its outcome is available from
+     * endpoint 8. An {@code Idempotency-Key} header is honoured as on
+     * endpoint 4, so a retried request is queued only once.</p>
+     *
+     * @param request        the promotion request payload
+     * @param idempotencyKey the optional idempotency key header
+     * @return HTTP 202 (Accepted) with a {@link PromotionStatusDTO} holding
+     *         the tracking id and a {@code Location} header pointing to the
+     *         status, HTTP 400 (Bad Request) if validation fails, or
+     *         HTTP 503 (Service Unavailable) if the queue is full or not running
+     */
+    @POST
+    @Path("/promotions/async")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response enqueuePromotion(PromotionRequestDTO request,
+                                     @HeaderParam(IdempotencyStore.KEY_HEADER)
+                                     String idempotencyKey) {
+        return IdempotencyStore.execute(idempotencyKey, fingerprint(request), () -> {
+            if (!isValid(request)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("empNo, newTitle and effectiveFrom are required")
+                        .build();
+            }
 
-        } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
+            PromotionStatusDTO status;
+            try {
+                status = PromotionQueue.submit(request);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = null;
+            }
+            if (status == null) {
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", 1)
+                        .entity("Promotion queue is full or not running")
+                        .build();
             }
-            e.printStackTrace();
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("Error performing promotion: " + e.getMessage())
+            return Response.accepted(status)
+                    .location(URI.create("employees/promotions/async/" + status.getTrackingId()))
                     .build();
-        } finally {
-            em.close();
+        });
+    }
+
+    /**
+     * Endpoint 8:
+     * <pre>
+     * GET /api/employees/promotions/async/{trackingId}
+     * </pre>
+     * Returns the state of a promotion accepted by endpoint 7.
+     *
+     * @param trackingId the tracking id returned by endpoint 7
+     * @return HTTP 200 (OK) with a {@link PromotionStatusDTO}, whose result is
+     *         set once the promotion has been processed, or
+     *         HTTP 404 (Not Found) if the id is unknown or its outcome has
+     *         been discarded
+     */
+    @GET
+    @Path("/promotions/async/{trackingId}")
+    public Response getPromotionStatus(@PathParam("trackingId") long trackingId) {
+        PromotionStatusDTO status = PromotionQueue.getStatus(trackingId);
+        if (status == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("No promotion with tracking id " + trackingId)
+                    .build();
+        }
+        return Response.ok(status).build();
+    }
+
+    /**
+     * Applies one chunk of a batch in its own transaction and stores the
+     * per-item outcomes in {@code results}.
+     *
+     * <p>If the chunk conflicts with a concurrent promotion, the whole chunk
+     * is rolled back and retried; items still conflicting after the last
+     * attempt get status 409.</p>
+     *
+     * @param chunk        the validated requests of this chunk
+     * @param chunkIndexes the position of each request in the original batch
+     * @param results      the batch-wide result array to fill in
+     * @param clientId     the client making the batch; may be {@code null}
+     */
+    private void promoteChunk(List<PromotionRequestDTO> chunk,
+                              List<Integer> chunkIndexes,
+                              PromotionResultDTO[] results,
+                              String clientId) {
+        for (int attempt = 1; ; attempt++) {
+            EntityManager em = JPAUtil.getEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            TransactionEvent txEvent = TransactionEvent.start("promoteEmployees", 0, chunk.size());
+            boolean committed = false;
+            try {
+                tx.begin();
+                List<PromotionResultDTO> chunkResults =
+                        new EmployeeDAO(em).promoteEmployees(chunk);
+                tx.commit();
+                committed = true;
+
+                for (int i = 0; i < chunkResults.size(); i++) {
+                    PromotionResultDTO result = chunkResults.get(i);
+                    results[chunkIndexes.get(i)] = result;
+                    if (result.getStatus() == 200) {
+                        ReadRouter.recordWrite(clientId, result.getEmpNo());
+                    }
+                }
+                return;
+            } catch (Exception e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                boolean conflict = EmployeeDAO.isVersionConflict(e);
+                if (conflict && attempt < MAX_PROMOTION_ATTEMPTS && backOff(attempt)) {
+                    continue;
+                }
+                if (!conflict) {
+                    e.printStackTrace();
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    int empNo = chunk.get(i).getEmpNo();
+                    results[chunkIndexes.get(i)] = conflict
+                            ? new PromotionResultDTO(empNo, 409,
+                                    "Employee " + empNo + " is being promoted concurrently, try again")
+                            : new PromotionResultDTO(empNo, 500,
+                                    "Error performing promotion: " + e.getMessage());
+                }
+                return;
+            } finally {
+                txEvent.finish(committed);
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Pauses for a random time before retrying a conflicting promotion, so
+     * that the competing transactions do not collide again.
+     *
+     * @param attempt the attempt that just failed, starting at 1
+     * @return {@code false} if the thread was interrupted and should not retry
+     */
+    private static boolean backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MS << attempt));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Builds the error message for a promotion that was not applied.
+     *
+     * @param outcome the reason the promotion was rejected
+     * @param request the rejected request
+     * @return the message returned to the client
+     */
+    private static String rejectionMessage(PromotionOutcome outcome,
+                                           PromotionRequestDTO request) {
+        return switch (outcome) {
+            case NOT_FOUND -> "Employee " + request.getEmpNo() + " not found";
+            case DUPLICATE_DATE -> "Employee already has a promotion effective on " +
+                    request.getEffectiveFrom();
+            case NO_CURRENT_DEPARTMENT -> "Employee " + request.getEmpNo() +
+                    " has no current department";
+            case PROMOTED -> "Employee " + request.getEmpNo() + " promoted";
+        };
+    }
+
+    /**
+     * Builds the fingerprint binding an idempotency key to a request.
+     *
+     * @param request the promotion request; may be {@code null}
+     * @return a string that is equal for equal requests
+     */
+    private static String fingerprint(PromotionRequestDTO request) {
+        if (request == null) {
+            return "";
+        }
+        return request.getEmpNo() + "|" + request.getNewTitle() + "|" +
+                request.getNewSalary() + "|" + request.getEffectiveFrom();
+    }
+
+    /**
+     * Checks that a promotion request carries the required fields.
+     *
+     * @param request the request to check; may be {@code null}
+     * @return {@code true} if empNo, newTitle and effectiveFrom are present
+     */
+    private static boolean isValid(PromotionRequestDTO request) {
+        return request != null &&
+                request.getEmpNo() > 0 &&
+                request.getNewTitle() != null && !request.getNewTitle().isBlank() &&
+                request.getEffectiveFrom() != null;
+    }
+
+    /**
+     * Version of an employee, for {@link #getEmployeeByNumber}: the
+     * employee's version column, incremented by every promotion. A response
+     * is tagged with the version of the employee it carries, which is also
+     * recorded in the {@link EmployeeVersionCache}; a conditional request is
+     * answered early only when the employee's version is held there.
+     */
+    public static class EmployeeVersion implements VersionSource {
+
+        @Override
+        public String currentVersion(ContainerRequestContext request) {
+            int empNo;
+            try {
+                empNo = Integer.parseInt(
+                        request.getUriInfo().getPathParameters().getFirst("empNo"));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            Integer version = EmployeeVersionCache.get(empNo);
+            return version == null ? null : "e" + empNo + "." + version;
+        }
+
+        @Override
+        public String versionOf(ContainerRequestContext request, Object entity) {
+            Employee employee = entity instanceof EmployeeView view ? view.getEmployee()
+                    : entity instanceof Employee e ? e : null;
+            if (employee == null) {
+                return null;
+            }
+            EmployeeVersionCache.advance(employee.getEmpNo(), employee.getVersion());
+            return "e" + employee.getEmpNo() + "." + employee.getVersion();
         }
     }
 }
@@ -0,0 +1,220 @@
+package jpa_demo_01.resource;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+import jpa_demo_01.cache.DepartmentHeadcountCache;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.dto.PoolStatsDTO;
+import jpa_demo_01.metrics.Histogram;
+import jpa_demo_01.metrics.PoolMetricsTracker;
+import jpa_demo_01.metrics.PrometheusFormat;
+import jpa_demo_01.metrics.RequestMetrics;
+import jpa_demo_01.metrics.RouteMetrics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * REST resource exposing service metrics for Prometheus to scrape.
+ *
+ * <p>Base path: {@code /api/metrics}</p>
+ *
+ * <p>Endpoints:</p>
+ * <ul>
+ *     <li>{@code GET /api/metrics} — per-route request metrics, Hibernate
+ *         statistics, in-process cache and connection pool metrics in the
+ *         Prometheus text format.</li>
+ * </ul>
+ */
+@Path("/metrics")
+public class MetricsResource {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double MILLIS_PER_SECOND = 1e3;
+
+    /**
+     * <pre>
+     * GET /api/metrics
+     * </pre>
+     * Returns all metrics collected since startup.
+     *
+     * <p>Request metrics are labelled with the HTTP method and the resource
+     * path template ({@code route}), e.g. {@code /departments/{deptNo}}.
+     * Latency percentiles are estimated from the histogram buckets.
+     * Hibernate statistics are labelled with the {@code database} they
+     * belong to ({@code primary}, {@code replica-1}, ...).</p>
+     *
+     * @return HTTP 200 (OK) with the metrics as {@code text/plain}
+     */
+    @GET
+    @Produces(PrometheusFormat.CONTENT_TYPE)
+    public Response getMetrics() {
+        PrometheusFormat format = new PrometheusFormat();
+        writeRequestMetrics(format);
+        writeHibernateMetrics(format, JPAUtil.getStatisticsByDatabase());
+        writeCacheMetrics(format);
+        writePoolMetrics(format);
+        return Response.ok(format.toString()).build();
+    }
+
+    private void writeRequestMetrics(PrometheusFormat format) {
+        List<RouteMetrics> routes = RequestMetrics.getRoutes();
+
+        format.family("http_server_request_duration_seconds", "histogram",
+                "Time from receiving a request to sending the last byte of its response.");
+        for (RouteMetrics route : routes) {
+            format.histogram("http_server_request_duration_seconds", labels(route),
+                    route.getLatencyNanos(), NANOS_PER_SECOND);
+        }
+
+        format.family("http_server_request_duration_percentile_seconds", "gauge",
+                "Request duration percentiles, estimated as histogram bucket bounds.");
+        for (RouteMetrics route : routes) {
+            Histogram latency = route.getLatencyNanos();
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (double quantile : new double[] {0.5, 0.95, 0.99}) {
+                long nanos = latency.percentile(quantile);
+                percentiles.put(String.valueOf(quantile), nanos == Long.MAX_VALUE
+                        ? Double.POSITIVE_INFINITY
+                        : nanos / NANOS_PER_SECOND);
+            }
+            format.samples("http_server_request_duration_percentile_seconds",
+                    labels(route), "quantile", percentiles);
+        }
+
+        format.family("http_server_responses_total", "counter",
+                "Responses sent, by status code.");
+        for (RouteMetrics route : routes) {
+            format.samples("http_server_responses_total", labels(route), "status",
+                    route.getStatusCounts());
+        }
+
+        format.family("http_server_response_size_bytes", "histogram",
+                "Size of response bodies.");
+        for (RouteMetrics route : routes) {
+            format.histogram("http_server_response_size_bytes", labels(route),
+                    route.getResponseBytes(), 1);
+        }
+
+        format.family("http_server_request_jdbc_statements", "histogram",
+                "JDBC statements executed per request; a batch counts once.");
+        for (RouteMetrics route : routes) {
+            format.histogram("http_server_request_jdbc_statements", labels(route),
+                    route.getStatements(), 1);
+        }
+    }
+
+    private void writeHibernateMetrics(PrometheusFormat format,
+                                       Map<String, Statistics> statisticsByDatabase) {
+        hibernateCounter(format, statisticsByDatabase, "hibernate_statements_prepared_total",
+                "JDBC statements prepared.", Statistics::getPrepareStatementCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_queries_executed_total",
+                "HQL and native queries executed.", Statistics::getQueryExecutionCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_entity_loads_total",
+                "Entities loaded.", Statistics::getEntityLoadCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_entity_fetches_total",
+                "Entities fetched by a separate select.", Statistics::getEntityFetchCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_collection_loads_total",
+                "Collections loaded.", Statistics::getCollectionLoadCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_collection_fetches_total",
+                "Collections fetched by a separate select.",
+                Statistics::getCollectionFetchCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_entity_inserts_total",
+                "Entities inserted.", Statistics::getEntityInsertCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_entity_updates_total",
+                "Entities updated.", Statistics::getEntityUpdateCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_flushes_total",
+                "Session flushes.", Statistics::getFlushCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_sessions_opened_total",
+                "Sessions opened.", Statistics::getSessionOpenCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_transactions_total",
+                "Transactions completed.", Statistics::getTransactionCount);
+        hibernateCounter(format, statisticsByDatabase, "hibernate_optimistic_failures_total",
+                "Optimistic lock failures.", Statistics::getOptimisticFailureCount);
+
+        format.family("hibernate_second_level_cache_requests_total", "counter",
+                "Second-level cache lookups and puts, by result.");
+        statisticsByDatabase.forEach((database, statistics) -> {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("hit", statistics.getSecondLevelCacheHitCount());
+            counts.put("miss", statistics.getSecondLevelCacheMissCount());
+            counts.put("put", statistics.getSecondLevelCachePutCount());
+            format.samples("hibernate_second_level_cache_requests_total",
+                    new String[] {"database", database}, "result", counts);
+        });
+
+        format.family("hibernate_query_cache_requests_total", "counter",
+                "Query cache lookups and puts, by result.");
+        statisticsByDatabase.forEach((database, statistics) -> {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("hit", statistics.getQueryCacheHitCount());
+            counts.put("miss", statistics.getQueryCacheMissCount());
+            counts.put("put", statistics.getQueryCachePutCount());
+            format.samples("hibernate_query_cache_requests_total",
+                    new String[] {"database", database}, "result", counts);
+        });
+    }
+
+    private void writeCacheMetrics(PrometheusFormat format) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("hit", DepartmentHeadcountCache.getHitCount());
+        counts.put("miss", DepartmentHeadcountCache.getMissCount());
+        format.family("department_headcount_cache_requests_total", "counter",
+                "Department headcount cache lookups, by result.");
+        format.samples("department_headcount_cache_requests_total", new String[0],
+                "result", counts);
+    }
+
+    private void writePoolMetrics(PrometheusFormat format) {
+        PoolStatsDTO stats = JPAUtil.getPoolStats();
+        PoolMetricsTracker tracker = JPAUtil.getPoolMetrics();
+
+        Map<String, Integer> connections = new LinkedHashMap<>();
+        connections.put("active", stats.getActive());
+        connections.put("idle", stats.getIdle());
+        format.family("hikari_connections", "gauge", "Pooled connections, by state.");
+        format.samples("hikari_connections", new String[0], "state", connections);
+
+        format.family("hikari_connections_pending", "gauge",
+                "Threads waiting for a connection.");
+        format.sample("hikari_connections_pending", new String[0], stats.getWaiting());
+        format.family("hikari_connections_max", "gauge", "Maximum pool size.");
+        format.sample("hikari_connections_max", new String[0], stats.getMaximumPoolSize());
+
+        counter(format, "hikari_connection_timeouts_total",
+                "Connection requests that timed out.", tracker.getTimeoutCount());
+        format.family("hikari_connection_acquire_seconds", "histogram",
+                "Time spent waiting for a connection.");
+        format.histogram("hikari_connection_acquire_seconds", new String[0],
+                tracker.getAcquireNanos(), NANOS_PER_SECOND);
+        format.family("hikari_connection_usage_seconds", "histogram",
+                "Time a connection was held before being returned.");
+        format.histogram("hikari_connection_usage_seconds", new String[0],
+                tracker.getUsageMillis(), MILLIS_PER_SECOND);
+    }
+
+    private static void counter(PrometheusFormat format, String name, String help,
+                                long value) {
+        format.family(name, "counter", help);
+        format.sample(name, new String[0], value);
+    }
+
+    private static void hibernateCounter(PrometheusFormat format,
+                                         Map<String, Statistics> statisticsByDatabase,
+                                         String name, String help,
+                                         ToLongFunction<Statistics> value) {
+        format.family(name, "counter", help);
+        statisticsByDatabase.forEach((database, statistics) ->
+                format.sample(name, new String[] {"database", database},
+                        value.applyAsLong(statistics)));
+    }
+
+    private static String[] labels(RouteMetrics route) {
+        return new String[] {"method", route.getMethod(), "route", route.getRoute()};
+    }
+}
@@ -0,0 +1,142 @@
+package jpa_demo_01.resource;
+
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jpa_demo_01.cache.CurrentTitleIndex;
+import jpa_demo_01.cache.EmployeeNameIndex;
+import jpa_demo_01.config.BinaryJacksonProvider;
+import jpa_demo_01.dto.EmployeeInfoDTO;
+import jpa_demo_01.dto.EmployeePageDTO;
+import jpa_demo_01.dto.PageCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST resource answering "who holds title X now" questions.
+ *
+ * <p>Base path: {@code /api/titles}</p>
+ *
+ * <p>Endpoints:</p>
+ * <ul>
+ *     <li>{@code GET /api/titles} — number of current holders per title.</li>
+ *     <li>{@code GET /api/titles/{title}/employees?deptNo=d005} —
+ *         cursor-paginated list of the current holders of a title,
+ *         optionally within one department.</li>
+ * </ul>
+ *
+ * <p>Both are served from the in-memory {@link CurrentTitleIndex} and
+ * {@link EmployeeNameIndex} on the calling thread, without touching the
+ * database. Promotions are reflected as soon as they commit.</p>
+ */
+@Path("/titles")
+@Produces({MediaType.APPLICATION_JSON, BinaryJacksonProvider.CBOR_QS, BinaryJacksonProvider.SMILE_QS})
+public class TitleResource {
+
+    /**
+     * Largest number of employees returned per page.
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Endpoint 12:
+     * <pre>
+     * GET /api/titles
+     * </pre>
+     * Returns the number of employees currently holding each title.
+     *
+     * @return HTTP 200 (OK) with holder counts keyed by title, or
+     *         HTTP 503 (Service Unavailable) if the index is not built
+     */
+    @GET
+    public Response getTitleCounts() {
+        Map<String, Integer> counts = CurrentTitleIndex.countByTitle();
+        if (counts == null) {
+            return notReady();
+        }
+        return Response.ok(counts).build();
+    }
+
+    /**
+     * Endpoint 13:
+     * <pre>
+     * GET /api/titles/{title}/employees?deptNo=d005&amp;after={cursor}&amp;limit=20
+     * </pre>
+     * Returns a page of the employees currently holding a title, ordered by
+     * employee number, as an {@link EmployeePageDTO} carrying the total
+     * number of holders and the cursor of the next page.
+     *
+     * <p>With {@code deptNo}, only holders currently in that department are
+     * returned; the intersection is computed on the index's bitmaps.</p>
+     *
+     * @param title  the title (path parameter); matched ignoring case when
+     *               there is no exact match
+     * @param deptNo the department to restrict to (query parameter, optional)
+     * @param after  the {@code nextCursor} of the previous page (query
+     *               parameter, optional)
+     * @param limit  the page size (query parameter, defaults to 20, at most
+     *               {@value #MAX_PAGE_SIZE})
+     * @return HTTP 200 (OK) with an {@link EmployeePageDTO},
+     *         HTTP 400 (Bad Request) if the cursor or limit is invalid,
+     *         HTTP 404 (Not Found) if nobody currently holds the title, or
+     *         HTTP 503 (Service Unavailable) if the indexes are not built
+     */
+    @GET
+    @Path("/{title}/employees")
+    public Response getTitleHolders(@PathParam("title") String title,
+                                    @QueryParam("deptNo") String deptNo,
+                                    @QueryParam("after") String after,
+                                    @QueryParam("limit") @DefaultValue("20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be between 1 and " + MAX_PAGE_SIZE)
+                    .build();
+        }
+        int afterEmpNo;
+        try {
+            afterEmpNo = after == null || after.isEmpty() ? 0 : PageCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Invalid cursor: " + after)
+                    .build();
+        }
+        if (!EmployeeNameIndex.isReady()) {
+            return notReady();
+        }
+
+        CurrentTitleIndex.Page page = CurrentTitleIndex.find(title, deptNo, afterEmpNo, limit);
+        if (page == null) {
+            return notReady();
+        }
+        if (page.total() == 0 && deptNo == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Nobody currently holds the title " + title)
+                    .build();
+        }
+
+        List<EmployeeInfoDTO> items = new ArrayList<>(page.empNos().length);
+        for (int empNo : page.empNos()) {
+            EmployeeInfoDTO employee = EmployeeNameIndex.get(empNo);
+            items.add(employee != null ? employee : new EmployeeInfoDTO(empNo, null, null, null));
+        }
+        String nextCursor = page.more() ? PageCursor.encode(items.get(items.size() - 1).getEmpNo())
+                : null;
+
+        EmployeePageDTO body = new EmployeePageDTO(items, nextCursor);
+        body.setTotal((long) page.total());
+        return Response.ok(body).build();
+    }
+
+    private static Response notReady() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .entity("Title queries are not available")
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package jpa_demo_01.dao;
+
+import jakarta.persistence.EntityManager;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.entity.Employee;
+import jpa_demo_01.metrics.StatementCountingListener;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the cost of {@link EmployeeDAO#findEmployee(int, EmployeeFetchProfile)}
+ * for each fetch profile: one statement for the employee plus one per
+ * collection of the profile, returning as many rows as the employee has
+ * history rows rather than the product of its collection sizes.
+ *
+ * <p>The second-level cache is emptied before each test so that every
+ * lookup goes to the database. Rows are counted by the database, see
+ * {@link TestDatabase#rowCount()}.</p>
+ */
+class FindEmployeeStatementCountTest {
+
+    private static final int EMP_NO = TestDatabase.HISTORY_EMP_NO;
+
+    @BeforeAll
+    static void startDatabase() {
+        TestDatabase.start();
+    }
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.evictCaches();
+        TestDatabase.resetRowCount();
+        StatementCountingListener.begin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        StatementCountingListener.end();
+    }
+
+    @Test
+    void summaryLoadsTheEmployeeRowOnly() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            Employee employee = new EmployeeDAO(em).findEmployee(EMP_NO, EmployeeFetchProfile.SUMMARY);
+
+            assertEquals(1, StatementCountingListener.currentCount());
+            assertEquals(1, TestDatabase.rowCount());
+            assertFalse(Hibernate.isInitialized(employee.getSalaries()));
+            assertFalse(Hibernate.isInitialized(employee.getTitles()));
+            assertFalse(Hibernate.isInitialized(employee.getDeptEmpList()));
+            assertFalse(Hibernate.isInitialized(employee.getDeptManagerList()));
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    void historyLoadsSalariesAndTitlesWithOneStatementEach() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            Employee employee = new EmployeeDAO(em).findEmployee(EMP_NO, EmployeeFetchProfile.HISTORY);
+
+            assertEquals(3, StatementCountingListener.currentCount());
+            assertEquals(1 + TestDatabase.HISTORY_SALARIES + TestDatabase.HISTORY_TITLES,
+                    TestDatabase.rowCount());
+            assertEquals(TestDatabase.HISTORY_SALARIES, employee.getSalaries().size());
+            assertEquals(TestDatabase.HISTORY_TITLES, employee.getTitles().size());
+            assertFalse(Hibernate.isInitialized(employee.getDeptEmpList()));
+            assertEquals(3, StatementCountingListener.currentCount());
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Joining the four collections in one statement returned
+     * 2 × 1 × 3 × 2 = 12 rows for the seeded employee; one statement each
+     * returns 1 + 2 + 1 + 3 + 2 = 9.
+     */
+    @Test
+    void fullLoadsEachCollectionWithOneStatement() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            Employee employee = new EmployeeDAO(em).findEmployee(EMP_NO, EmployeeFetchProfile.FULL);
+
+            assertEquals(5, StatementCountingListener.currentCount());
+            assertEquals(1 + TestDatabase.HISTORY_DEPT_EMP + TestDatabase.HISTORY_DEPT_MANAGER
+                            + TestDatabase.HISTORY_SALARIES + TestDatabase.HISTORY_TITLES,
+                    TestDatabase.rowCount());
+            assertEquals(TestDatabase.HISTORY_DEPT_EMP, employee.getDeptEmpList().size());
+            assertEquals(TestDatabase.HISTORY_DEPT_MANAGER, employee.getDeptManagerList().size());
+            assertEquals(TestDatabase.HISTORY_SALARIES, employee.getSalaries().size());
+            assertEquals(TestDatabase.HISTORY_TITLES, employee.getTitles().size());
+            assertEquals(5, StatementCountingListener.currentCount());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    void unknownEmployeeTakesOneStatement() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            assertNull(new EmployeeDAO(em).findEmployee(1, EmployeeFetchProfile.FULL));
+            assertEquals(1, StatementCountingListener.currentCount());
+            assertEquals(0, TestDatabase.rowCount());
+        } finally {
+            em.close();
+        }
+    }
+}
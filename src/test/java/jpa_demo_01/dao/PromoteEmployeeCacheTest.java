@@ -0,0 +1,143 @@
+package jpa_demo_01.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.entity.Employee;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a promotion leaves no stale {@link Employee} in the
+ * second-level cache when another request loads the employee while the
+ * promotion is running.
+ */
+class PromoteEmployeeCacheTest {
+
+    private static final LocalDate EFFECTIVE_FROM = LocalDate.of(2004, 1, 1);
+
+    @BeforeAll
+    static void startDatabase() {
+        TestDatabase.start();
+    }
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.evictCaches();
+    }
+
+    /**
+     * A reader runs its {@code SELECT} before the promotion commits, and
+     * only puts the row into the cache once the promotion has committed.
+     * The next lookup must still see the promoted version.
+     */
+    @Test
+    void rowReadBeforeCommitIsNotCachedAfterIt() throws Exception {
+        int empNo = TestDatabase.FIRST_PLAIN_EMP_NO + 4;
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> readVersion = reader.submit(() -> {
+                EntityManager em = JPAUtil.getEntityManager();
+                try {
+                    // Holds the loaded row between the SELECT and the cache put
+                    em.unwrap(Session.class).addEventListeners(new SessionEventListener() {
+                        @Override
+                        public void jdbcExecuteStatementEnd() {
+                            read.countDown();
+                            awaitQuietly(committed);
+                        }
+                    });
+                    return em.find(Employee.class, empNo).getVersion();
+                } finally {
+                    em.close();
+                }
+            });
+
+            assertTrue(read.await(10, TimeUnit.SECONDS), "reader did not run its query");
+            promote(empNo);
+            committed.countDown();
+            int staleVersion = readVersion.get(10, TimeUnit.SECONDS);
+
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                assertEquals(staleVersion + 1, em.find(Employee.class, empNo).getVersion());
+            } finally {
+                em.close();
+            }
+        } finally {
+            committed.countDown();
+            reader.shutdownNow();
+        }
+    }
+
+    /**
+     * A rolled-back promotion releases the cached entry without changing
+     * the version later lookups see.
+     */
+    @Test
+    void rolledBackPromotionKeepsTheVersion() {
+        int empNo = TestDatabase.FIRST_PLAIN_EMP_NO + 5;
+        int version = findVersion(empNo);
+
+        EntityManager em = JPAUtil.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            new EmployeeDAO(em).promoteEmployee(empNo, "Senior Staff", null, EFFECTIVE_FROM);
+            tx.rollback();
+        } finally {
+            em.close();
+        }
+
+        assertEquals(version, findVersion(empNo));
+    }
+
+    private static void promote(int empNo) {
+        EntityManager em = JPAUtil.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            assertEquals(PromotionOutcome.PROMOTED, new EmployeeDAO(em)
+                    .promoteEmployee(empNo, "Senior Staff", null, EFFECTIVE_FROM));
+            tx.commit();
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
+
+    private static int findVersion(int empNo) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return em.find(Employee.class, empNo).getVersion();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
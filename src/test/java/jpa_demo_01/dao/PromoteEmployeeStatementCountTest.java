@@ -0,0 +1,109 @@
+package jpa_demo_01.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jpa_demo_01.config.JPAUtil;
+import jpa_demo_01.metrics.StatementCountingListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the statement budget of {@link EmployeeDAO#promoteEmployee}: one
+ * lookup, one version update, then the close-out updates and inserts sent
+ * as JDBC batches, for at most seven statements.
+ *
+ * <p>Statements are counted with {@link StatementCountingListener}, which
+ * is installed on every session by {@code persistence.xml}, from before the
+ * transaction begins until after it commits, so the flush is included.</p>
+ */
+class PromoteEmployeeStatementCountTest {
+
+    private static final LocalDate EFFECTIVE_FROM = LocalDate.of(2003, 1, 1);
+
+    @BeforeAll
+    static void startDatabase() {
+        TestDatabase.start();
+    }
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.evictCaches();
+        StatementCountingListener.begin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        StatementCountingListener.end();
+    }
+
+    @Test
+    void titleAndSalaryChangeTakesAtMostSixStatements() {
+        // lookup, version, close title + salary, insert title + salary
+        int statements = promote(TestDatabase.FIRST_PLAIN_EMP_NO, "Senior Staff", 45_000,
+                PromotionOutcome.PROMOTED);
+        assertTrue(statements <= 6, "promotion took " + statements + " statements");
+    }
+
+    @Test
+    void titleOnlyChangeTakesAtMostFourStatements() {
+        // lookup, version, close title, insert title
+        int statements = promote(TestDatabase.FIRST_PLAIN_EMP_NO + 1, "Senior Staff", null,
+                PromotionOutcome.PROMOTED);
+        assertTrue(statements <= 4, "promotion took " + statements + " statements");
+    }
+
+    @Test
+    void managerPromotionTakesAtMostSevenStatements() {
+        // as above, plus the new dept_manager row
+        int statements = promote(TestDatabase.FIRST_PLAIN_EMP_NO + 2, "Manager", 55_000,
+                PromotionOutcome.PROMOTED);
+        assertTrue(statements <= 7, "promotion took " + statements + " statements");
+    }
+
+    @Test
+    void rejectedPromotionOnlyRunsTheLookup() {
+        int empNo = TestDatabase.FIRST_PLAIN_EMP_NO + 3;
+        promote(empNo, "Senior Staff", null, PromotionOutcome.PROMOTED);
+
+        int statements = promote(empNo, "Technique Leader", null,
+                PromotionOutcome.DUPLICATE_DATE);
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void unknownEmployeeOnlyRunsTheLookup() {
+        int statements = promote(1, "Senior Staff", null, PromotionOutcome.NOT_FOUND);
+        assertEquals(1, statements);
+    }
+
+    /**
+     * Runs one promotion in its own transaction and returns the number of
+     * statements it took, checking its outcome on the way.
+     */
+    private static int promote(int empNo, String title, Integer salary,
+                               PromotionOutcome expected) {
+        int before = StatementCountingListener.currentCount();
+        EntityManager em = JPAUtil.getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            PromotionOutcome outcome = new EmployeeDAO(em)
+                    .promoteEmployee(empNo, title, salary, EFFECTIVE_FROM);
+            tx.commit();
+            assertEquals(expected, outcome);
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+        return StatementCountingListener.currentCount() - before;
+    }
+}
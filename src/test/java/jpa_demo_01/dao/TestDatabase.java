@@ -0,0 +1,212 @@
+package jpa_demo_01.dao;
+
+import jakarta.persistence.EntityManager;
+import jpa_demo_01.config.JPAUtil;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Embedded H2 database with a handful of employees for the DAO tests.
+ *
+ * <p>Points {@link JPAUtil} at an in-memory H2 database (through the
+ * {@code db.*} system property overrides, as the benchmarks do), lets
+ * Hibernate create the schema and inserts a fixed dataset:</p>
+ * <ul>
+ *     <li>{@value #HISTORY_EMP_NO} — two departments, one manager spell,
+ *         two titles and three salaries; used to read histories.</li>
+ *     <li>{@value #FIRST_PLAIN_EMP_NO} to {@code FIRST_PLAIN_EMP_NO + 9} —
+ *         one department, title and salary each; used for promotions, one
+ *         employee per test so that tests do not depend on each other.</li>
+ * </ul>
+ */
+final class TestDatabase {
+
+    static final int HISTORY_EMP_NO = 10001;
+    static final int FIRST_PLAIN_EMP_NO = 10010;
+    static final int PLAIN_EMPLOYEES = 10;
+
+    /** Number of rows in each history collection of {@link #HISTORY_EMP_NO}. */
+    static final int HISTORY_DEPT_EMP = 2;
+    static final int HISTORY_DEPT_MANAGER = 1;
+    static final int HISTORY_TITLES = 2;
+    static final int HISTORY_SALARIES = 3;
+
+    static final LocalDate MAX_DATE = LocalDate.of(9999, 1, 1);
+
+    private static final String URL =
+            "jdbc:h2:mem:employees-test;MODE=MariaDB;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+    private static boolean started;
+
+    private TestDatabase() {}
+
+    /**
+     * Configures, creates and seeds the database once per JVM.
+     */
+    static synchronized void start() {
+        if (started) {
+            return;
+        }
+        System.setProperty("db.driver", "org.h2.Driver");
+        System.setProperty("db.url", URL);
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+        System.setProperty("db.reader.urls", "");
+        System.setProperty("hibernate.hbm2ddl.auto", "create");
+
+        // creating the factory creates the schema
+        JPAUtil.getEntityManagerFactory();
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            em.unwrap(org.hibernate.Session.class).doWork(TestDatabase::seed);
+        } finally {
+            em.close();
+        }
+        started = true;
+    }
+
+    /**
+     * Empties the second-level cache, so the next read goes to the database.
+     */
+    static void evictCaches() {
+        JPAUtil.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    /**
+     * Starts counting the rows the database returns, forgetting earlier
+     * counts. Uses H2's {@code QUERY_STATISTICS}, which the JDBC statements
+     * issued here do not add to.
+     */
+    static void resetRowCount() {
+        execute("SET QUERY_STATISTICS FALSE");
+        execute("SET QUERY_STATISTICS TRUE");
+    }
+
+    /**
+     * Returns the number of rows returned or written by the statements run
+     * since {@link #resetRowCount()}.
+     */
+    static long rowCount() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return em.unwrap(org.hibernate.Session.class).doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(
+                             "SELECT COALESCE(SUM(CUMULATIVE_ROW_COUNT), 0) " +
+                                     "FROM INFORMATION_SCHEMA.QUERY_STATISTICS " +
+                                     "WHERE UPPER(SQL_STATEMENT) NOT LIKE '%QUERY_STATISTICS%'")) {
+                    resultSet.next();
+                    return resultSet.getLong(1);
+                }
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void execute(String sql) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            em.unwrap(org.hibernate.Session.class).doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(sql);
+                }
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void seed(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement departments = connection.prepareStatement(
+                     "INSERT INTO departments (dept_no, dept_name) VALUES (?, ?)");
+             PreparedStatement employees = connection.prepareStatement(
+                     "INSERT INTO employees (emp_no, birth_date, first_name, last_name, gender, hire_date) " +
+                             "VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement deptEmp = connection.prepareStatement(
+                     "INSERT INTO dept_emp (emp_no, dept_no, from_date, to_date) VALUES (?, ?, ?, ?)");
+             PreparedStatement deptManager = connection.prepareStatement(
+                     "INSERT INTO dept_manager (emp_no, dept_no, from_date, to_date) VALUES (?, ?, ?, ?)");
+             PreparedStatement titles = connection.prepareStatement(
+                     "INSERT INTO titles (emp_no, title, from_date, to_date) VALUES (?, ?, ?, ?)");
+             PreparedStatement salaries = connection.prepareStatement(
+                     "INSERT INTO salaries (emp_no, from_date, salary, to_date) VALUES (?, ?, ?, ?)")) {
+
+            addRow(departments, "d001", "Marketing");
+            addRow(departments, "d002", "Finance");
+
+            LocalDate hired = LocalDate.of(1990, 1, 1);
+            addEmployee(employees, HISTORY_EMP_NO, "Georgi", "Facello", hired);
+            addHistory(deptEmp, HISTORY_EMP_NO, "d001", hired, LocalDate.of(1995, 6, 30));
+            addHistory(deptEmp, HISTORY_EMP_NO, "d002", LocalDate.of(1995, 7, 1), MAX_DATE);
+            addHistory(deptManager, HISTORY_EMP_NO, "d002", LocalDate.of(1996, 1, 1), MAX_DATE);
+            addHistory(titles, HISTORY_EMP_NO, "Engineer", hired, LocalDate.of(1995, 12, 31));
+            addHistory(titles, HISTORY_EMP_NO, "Senior Engineer", LocalDate.of(1996, 1, 1), MAX_DATE);
+            addSalary(salaries, HISTORY_EMP_NO, hired, 60_000, LocalDate.of(1991, 1, 1));
+            addSalary(salaries, HISTORY_EMP_NO, LocalDate.of(1991, 1, 2), 62_000, LocalDate.of(1992, 1, 1));
+            addSalary(salaries, HISTORY_EMP_NO, LocalDate.of(1992, 1, 2), 65_000, MAX_DATE);
+
+            for (int i = 0; i < PLAIN_EMPLOYEES; i++) {
+                int empNo = FIRST_PLAIN_EMP_NO + i;
+                addEmployee(employees, empNo, "Plain" + i, "Employee", hired);
+                addHistory(deptEmp, empNo, "d001", hired, MAX_DATE);
+                addHistory(titles, empNo, "Staff", hired, MAX_DATE);
+                addSalary(salaries, empNo, hired, 40_000, MAX_DATE);
+            }
+
+            for (PreparedStatement statement : new PreparedStatement[] {
+                    departments, employees, deptEmp, deptManager, titles, salaries }) {
+                statement.executeBatch();
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void addRow(PreparedStatement statement, String deptNo, String name)
+            throws SQLException {
+        statement.setString(1, deptNo);
+        statement.setString(2, name);
+        statement.addBatch();
+    }
+
+    private static void addEmployee(PreparedStatement statement, int empNo, String firstName,
+                                    String lastName, LocalDate hireDate) throws SQLException {
+        statement.setInt(1, empNo);
+        statement.setDate(2, Date.valueOf(hireDate.minusYears(25)));
+        statement.setString(3, firstName);
+        statement.setString(4, lastName);
+        statement.setString(5, "M");
+        statement.setDate(6, Date.valueOf(hireDate));
+        statement.addBatch();
+    }
+
+    private static void addHistory(PreparedStatement statement, int empNo, String key,
+                                   LocalDate from, LocalDate to) throws SQLException {
+        statement.setInt(1, empNo);
+        statement.setString(2, key);
+        statement.setDate(3, Date.valueOf(from));
+        statement.setDate(4, Date.valueOf(to));
+        statement.addBatch();
+    }
+
+    private static void addSalary(PreparedStatement statement, int empNo, LocalDate from,
+                                  int salary, LocalDate to) throws SQLException {
+        statement.setInt(1, empNo);
+        statement.setDate(2, Date.valueOf(from));
+        statement.setInt(3, salary);
+        statement.setDate(4, Date.valueOf(to));
+        statement.addBatch();
+    }
+}